@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted on the hot paths of a build. Record a build with
+ * {@code -XX:StartFlightRecording} and open the recording in JDK Mission Control to find the slow
+ * classes and pages; the events are found under the "Evergarden" category.
+ */
+public final class BuildEvents {
+
+    /**
+     * Hide constructor.
+     */
+    private BuildEvents() {
+    }
+
+    /**
+     * The construction of the model of a type.
+     */
+    @Name("evergarden.ClassScan")
+    @Label("Class Scan")
+    @Description("Builds the model of a type from the javac element.")
+    @Category({"Evergarden", "Scan"})
+    @StackTrace(false)
+    public static class ClassScan extends Event {
+
+        @Label("Class")
+        public String id;
+
+        @Label("Members")
+        public int members;
+    }
+
+    /**
+     * The rendering of a documentation comment into XML.
+     */
+    @Name("evergarden.CommentRender")
+    @Label("Comment Render")
+    @Description("Renders the documentation comment of an element into XML.")
+    @Category({"Evergarden", "Scan"})
+    @StackTrace(false)
+    public static class CommentRender extends Event {
+
+        @Label("Element")
+        public String element;
+
+        @Label("Length")
+        @Description("The number of characters in the rendered comment.")
+        public int length;
+    }
+
+    /**
+     * The lookup of the source code of a sample.
+     */
+    @Name("evergarden.SourceRead")
+    @Label("Source Read")
+    @Description("Looks up and parses the source code of a class or member in the document directories.")
+    @Category({"Evergarden", "Scan"})
+    @StackTrace(false)
+    public static class SourceRead extends Event {
+
+        @Label("Class")
+        public String type;
+
+        @Label("Member")
+        public String member;
+
+        @Label("Length")
+        @Description("The number of characters in the found source code.")
+        public int length;
+    }
+
+    /**
+     * The resolution of a type name.
+     */
+    @Name("evergarden.TypeResolution")
+    @Label("Type Resolution")
+    @Description("Resolves a type name into its fully qualified name or document location.")
+    @Category({"Evergarden", "Scan"})
+    @StackTrace(false)
+    public static class TypeResolution extends Event {
+
+        @Label("Name")
+        public String name;
+
+        @Label("Result")
+        public String result;
+    }
+
+    /**
+     * The rendering and writing of a page.
+     */
+    @Name("evergarden.PageRender")
+    @Label("Page Render")
+    @Description("Renders a page and writes it into the output directory.")
+    @Category({"Evergarden", "Site"})
+    @StackTrace(false)
+    public static class PageRender extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Page Type")
+        public String type;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * The fetch of a REST resource.
+     */
+    @Name("evergarden.RestFetch")
+    @Label("REST Fetch")
+    @Description("Fetches JSON data from the hosting service or its local cache.")
+    @Category({"Evergarden", "Network"})
+    @StackTrace(false)
+    public static class RestFetch extends Event {
+
+        @Label("URL")
+        public String url;
+
+        @Label("Cached")
+        public boolean cached;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import kiss.I;
+import psychopath.Directory;
+
+/**
+ * Records the content hash of every input of a build and the inputs which each generated page was
+ * rendered from. Comparing the manifest of the previous build with the current one tells which
+ * pages can be left untouched on disk.
+ * <p>
+ * Source files are keyed by their path relative to the source or document directory (e.g.
+ * {@code evergarden/Letter.java}), derived inputs are keyed by a prefixed name (e.g.
+ * {@code page:api/evergarden.Letter.html}). The pages can be recorded from multiple rendering
+ * threads at once.
+ */
+class BuildManifest {
+
+    /** The file name of the manifest in the output directory. */
+    static final String NAME = ".evergarden";
+
+    /** The input key for the site-wide settings shared by every page. */
+    static final String GLOBAL = "global";
+
+    /** The input key for the whole document directories. */
+    static final String DOCUMENTS = "documents";
+
+    /** The content hash of each input. */
+    private final Map<String, String> inputs = new TreeMap();
+
+    /** The input keys which each generated page depends on. */
+    private final Map<String, Set<String>> pages = new TreeMap();
+
+    /**
+     * Register the content hash of the specified input.
+     *
+     * @param key An input key.
+     * @param hash A content hash.
+     */
+    synchronized void input(String key, String hash) {
+        inputs.put(key, hash);
+    }
+
+    /**
+     * Register the derived input which is computed from the specified values.
+     *
+     * @param key An input key.
+     * @param values The values to digest.
+     */
+    void input(String key, Collection<?> values) {
+        MessageDigest digest = digest();
+        for (Object value : values) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        input(key, hex(digest.digest()));
+    }
+
+    /**
+     * Register all java source files under the specified directories.
+     *
+     * @param directories The source directories.
+     */
+    void inputs(List<Directory> directories) {
+        if (directories != null) {
+            Map<String, MessageDigest> digests = new HashMap();
+
+            for (Directory directory : directories) {
+                Path base = directory.asJavaPath();
+                if (Files.isDirectory(base)) {
+                    try (Stream<Path> files = Files.walk(base)) {
+                        files.filter(file -> file.toString().endsWith(".java")).forEach(file -> {
+                            String key = base.relativize(file).toString().replace(File.separatorChar, '/');
+                            try (InputStream input = Files.newInputStream(file)) {
+                                MessageDigest digest = digests.computeIfAbsent(key, k -> digest());
+                                digest.update(input.readAllBytes());
+                            } catch (IOException e) {
+                                throw I.quiet(e);
+                            }
+                        });
+                    } catch (IOException e) {
+                        throw I.quiet(e);
+                    }
+                }
+            }
+            digests.forEach((key, digest) -> input(key, hex(digest.digest())));
+        }
+    }
+
+    /**
+     * Retrieve the keys of all registered inputs.
+     *
+     * @return The input keys.
+     */
+    Set<String> inputs() {
+        return inputs.keySet();
+    }
+
+    /**
+     * Retrieve the content hash of the specified input.
+     *
+     * @param key An input key.
+     * @return The content hash, or null if it is not registered.
+     */
+    synchronized String hash(String key) {
+        return inputs.get(key);
+    }
+
+    /**
+     * Record the inputs which the specified page is rendered from.
+     *
+     * @param page A path to the generated page.
+     * @param keys The input keys.
+     */
+    synchronized void depend(String page, Collection<String> keys) {
+        pages.computeIfAbsent(page, p -> new LinkedHashSet()).addAll(keys);
+    }
+
+    /**
+     * Retrieve the inputs which the specified page was rendered from.
+     *
+     * @param page A path to the generated page.
+     * @return The input keys.
+     */
+    synchronized Set<String> dependencies(String page) {
+        return pages.getOrDefault(page, Set.of());
+    }
+
+    /**
+     * Retrieve the paths of all recorded pages.
+     *
+     * @return The page paths.
+     */
+    Set<String> pages() {
+        return pages.keySet();
+    }
+
+    /**
+     * Test whether the specified page was rendered from exactly the same inputs as the current
+     * build has.
+     *
+     * @param page A path to the generated page.
+     * @param current The manifest of the current build.
+     * @return Result.
+     */
+    boolean isUpToDate(String page, BuildManifest current) {
+        Set<String> keys = pages.get(page);
+        if (keys == null || keys.isEmpty()) {
+            return false;
+        }
+
+        for (String key : keys) {
+            String hash = inputs.get(key);
+            if (hash == null || !hash.equals(current.inputs.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the manifest of the previous build from the specified output directory.
+     *
+     * @param root The output directory.
+     * @return The stored manifest, or an empty one if it is absent or broken.
+     */
+    static BuildManifest load(Directory root) {
+        BuildManifest manifest = new BuildManifest();
+        Path file = root.asJavaPath().resolve(NAME);
+
+        if (Files.isRegularFile(file)) {
+            try {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] values = line.split("\t");
+
+                    if (values[0].equals("I") && values.length == 3) {
+                        manifest.input(values[1], values[2]);
+                    } else if (values[0].equals("P") && 2 <= values.length) {
+                        manifest.depend(values[1], List.of(values).subList(2, values.length));
+                    }
+                }
+            } catch (IOException e) {
+                return new BuildManifest();
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Write this manifest into the specified output directory.
+     *
+     * @param root The output directory.
+     */
+    void store(Directory root) {
+        List<String> lines = new ArrayList();
+        inputs.forEach((key, hash) -> lines.add("I\t" + key + "\t" + hash));
+        pages.forEach((page, keys) -> lines.add("P\t" + page + (keys.isEmpty() ? "" : "\t" + String.join("\t", keys))));
+
+        try {
+            Files.write(root.create().asJavaPath().resolve(NAME), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Create new digester.
+     *
+     * @return A SHA-256 digester.
+     */
+    static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Encode the digested bytes as hexadecimal text.
+     *
+     * @param bytes The digested bytes.
+     * @return A hexadecimal text.
+     */
+    static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Write the JSON string.
+     *
+     * @param text A text.
+     * @return The quoted text.
+     */
+    static String quote(String text) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"':
+            case '\\':
+                builder.append('\\').append(c);
+                break;
+
+            default:
+                if (c < 0x20) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+                break;
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
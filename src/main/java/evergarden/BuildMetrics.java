@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collects the wall-clock time and the CPU time spent in each phase of a build and the counters of
+ * the generated artifacts (types, members, pages, bytes etc.).
+ * <p>
+ * The metrics of the running build are bound to the building thread, so the static methods can be
+ * called from anywhere in the build process. They do nothing when no build is running. The metrics
+ * are not inherited by other threads, every task which is handed to an executor must be wrapped by
+ * {@link #bind(Supplier)} to be measured.
+ */
+public final class BuildMetrics {
+
+    /** Holds the metrics of the current build per thread. */
+    static final ThreadLocal<BuildMetrics> CURRENT = new ThreadLocal();
+
+    /** The thread management to measure CPU time. */
+    private static final ThreadMXBean THREAD = ManagementFactory.getThreadMXBean();
+
+    /** The start time of the build. */
+    private final Instant started = Instant.now();
+
+    /** The start time of the build in nanoseconds. */
+    private final long start = System.nanoTime();
+
+    /** The measured phases. */
+    private final Map<String, Phase> phases = new ConcurrentSkipListMap();
+
+    /** The counters. */
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap();
+
+    /** The weight of each rendered page. */
+    private final Map<String, PageBudget.Weight> weights = new ConcurrentSkipListMap();
+
+    /** The original and reduced sizes of each file per reduction kind (e.g. gzip, minify). */
+    private final Map<String, Map<String, long[]>> reductions = new ConcurrentSkipListMap();
+
+    /**
+     * Measure the specified phase.
+     *
+     * @param phase A phase name.
+     * @param action An action to measure.
+     * @return The result of the action.
+     */
+    public static <T> T measure(String phase, Supplier<T> action) {
+        BuildMetrics metrics = CURRENT.get();
+        if (metrics == null) {
+            return action.get();
+        }
+
+        long wall = System.nanoTime();
+        long cpu = cpu();
+        try {
+            return action.get();
+        } finally {
+            metrics.phases.computeIfAbsent(phase, Phase::new).record(System.nanoTime() - wall, cpu() - cpu);
+        }
+    }
+
+    /**
+     * Measure the specified phase.
+     *
+     * @param phase A phase name.
+     * @param action An action to measure.
+     */
+    public static void measure(String phase, Runnable action) {
+        measure(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Bind the metrics of the current thread to the specified task, so the task records into them
+     * on whichever thread it runs.
+     *
+     * @param task A task to bind.
+     * @return The bound task.
+     */
+    public static <T> Supplier<T> bind(Supplier<T> task) {
+        BuildMetrics metrics = CURRENT.get();
+        if (metrics == null) {
+            return task;
+        }
+
+        return () -> {
+            BuildMetrics previous = CURRENT.get();
+            CURRENT.set(metrics);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Increment the specified counter.
+     *
+     * @param counter A counter name.
+     * @param delta An amount to add.
+     */
+    public static void count(String counter, long delta) {
+        BuildMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.counters.computeIfAbsent(counter, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * Record the size reduction of the specified file.
+     *
+     * @param kind A reduction kind (e.g. gzip, minify).
+     * @param path A path to the file.
+     * @param raw The original size in bytes.
+     * @param reduced The reduced size in bytes.
+     */
+    public static void reduced(String kind, String path, long raw, long reduced) {
+        BuildMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.reductions.computeIfAbsent(kind, key -> new ConcurrentSkipListMap()).put(path, new long[] {raw, reduced});
+        }
+    }
+
+    /**
+     * Record the weight of the specified page.
+     *
+     * @param path A path to the page.
+     * @param weight The weight of the page.
+     */
+    public static void weighed(String path, PageBudget.Weight weight) {
+        BuildMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.weights.put(path, weight);
+        }
+    }
+
+    /**
+     * Read the CPU time of the current thread.
+     *
+     * @return The CPU time in nanoseconds, or 0 if it is not supported.
+     */
+    private static long cpu() {
+        return THREAD.isCurrentThreadCpuTimeSupported() ? THREAD.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Build the one-line summary of this build.
+     *
+     * @return A summary.
+     */
+    String summary() {
+        StringBuilder builder = new StringBuilder("Built in ").append(millis(System.nanoTime() - start)).append("ms");
+        phases.forEach((name, phase) -> {
+            if (name.indexOf('.') == -1) builder.append(" ").append(name).append("=").append(millis(phase.wall.sum())).append("ms");
+        });
+        counters.forEach((name, counter) -> builder.append(" ").append(name).append("=").append(counter.sum()));
+        reductions.forEach((kind, files) -> {
+            long raw = 0, reduced = 0;
+            for (long[] sizes : files.values()) {
+                raw += sizes[0];
+                reduced += sizes[1];
+            }
+            builder.append(" ").append(kind).append(".ratio=").append(ratio(raw, reduced));
+        });
+        return builder.toString();
+    }
+
+    /**
+     * Build the machine-readable report of this build.
+     *
+     * @return A JSON text.
+     */
+    String toJSON() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n");
+        builder.append("  \"started\": \"").append(started).append("\",\n");
+        builder.append("  \"wall\": ").append(millis(System.nanoTime() - start)).append(",\n");
+        builder.append("  \"phases\": {");
+        String separator = "\n";
+        for (Phase phase : phases.values()) {
+            builder.append(separator)
+                    .append("    \"")
+                    .append(phase.name)
+                    .append("\": {\"count\": ")
+                    .append(phase.count.sum())
+                    .append(", \"wall\": ")
+                    .append(millis(phase.wall.sum()))
+                    .append(", \"cpu\": ")
+                    .append(millis(phase.cpu.sum()))
+                    .append("}");
+            separator = ",\n";
+        }
+        builder.append("\n  },\n");
+        builder.append("  \"counters\": {");
+        separator = "\n";
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            builder.append(separator).append("    \"").append(counter.getKey()).append("\": ").append(counter.getValue().sum());
+            separator = ",\n";
+        }
+        builder.append("\n  },\n");
+        builder.append("  \"pages\": {");
+        separator = "\n";
+        for (Map.Entry<String, PageBudget.Weight> page : weights.entrySet()) {
+            PageBudget.Weight weight = page.getValue();
+            builder.append(separator)
+                    .append("    \"")
+                    .append(page.getKey())
+                    .append("\": {\"bytes\": ")
+                    .append(weight.bytes())
+                    .append(", \"nodes\": ")
+                    .append(weight.nodes())
+                    .append(", \"codes\": ")
+                    .append(weight.codes())
+                    .append(", \"requests\": ")
+                    .append(weight.requests())
+                    .append(", \"externals\": ")
+                    .append(weight.externals())
+                    .append("}");
+            separator = ",\n";
+        }
+        builder.append("\n  },\n");
+        builder.append("  \"reductions\": {");
+        separator = "\n";
+        for (Map.Entry<String, Map<String, long[]>> reduction : reductions.entrySet()) {
+            builder.append(separator).append("    \"").append(reduction.getKey()).append("\": {");
+            String inner = "\n";
+            for (Map.Entry<String, long[]> file : reduction.getValue().entrySet()) {
+                long[] sizes = file.getValue();
+                builder.append(inner)
+                        .append("      \"")
+                        .append(file.getKey())
+                        .append("\": {\"raw\": ")
+                        .append(sizes[0])
+                        .append(", \"reduced\": ")
+                        .append(sizes[1])
+                        .append(", \"ratio\": ")
+                        .append(ratio(sizes[0], sizes[1]))
+                        .append("}");
+                inner = ",\n";
+            }
+            builder.append("\n    }");
+            separator = ",\n";
+        }
+        builder.append("\n  }\n");
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    /**
+     * Compute the reduction ratio.
+     *
+     * @param raw The original size.
+     * @param reduced The reduced size.
+     * @return The ratio of the reduced size to the original size.
+     */
+    private static String ratio(long raw, long reduced) {
+        return raw == 0 ? "1" : String.format(Locale.ROOT, "%.3f", (double) reduced / raw);
+    }
+
+    /**
+     * Convert nanoseconds to milliseconds.
+     *
+     * @param nanos A time in nanoseconds.
+     * @return A time in milliseconds.
+     */
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * The accumulated time of the phase.
+     */
+    private static class Phase {
+
+        /** The phase name. */
+        private final String name;
+
+        /** The number of executions. */
+        private final LongAdder count = new LongAdder();
+
+        /** The total wall-clock time in nanoseconds. */
+        private final LongAdder wall = new LongAdder();
+
+        /** The total CPU time in nanoseconds. */
+        private final LongAdder cpu = new LongAdder();
+
+        /**
+         * @param name The phase name.
+         */
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Record an execution.
+         *
+         * @param wall The wall-clock time in nanoseconds.
+         * @param cpu The CPU time in nanoseconds.
+         */
+        private void record(long wall, long cpu) {
+            this.count.increment();
+            this.wall.add(wall);
+            this.cpu.add(cpu);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import evergarden.Letter.Doc;
+import evergarden.javadoc.ClassInfo;
+
+/**
+ * The top-level index of the site which every page loads as {@code root.js}. It holds only the
+ * modules, the packages and the document tree, the types of each package are written in the
+ * separated shard ({@code index/<package>.json}) which the navigation loads when the package is
+ * expanded or searched.
+ */
+public final class ClientIndex {
+
+    /** The module names. */
+    public List<String> modules = new ArrayList();
+
+    /** The package names. */
+    public List<String> packages = new ArrayList();
+
+    /** The published path of the type shard of each package, in the same order as packages. */
+    public List<String> shards = new ArrayList();
+
+    /** The document tree. */
+    public List<Doc> docs = new ArrayList();
+
+    /** The published path of the search index manifest. */
+    public String search;
+
+    /** The published path of the search worker. */
+    public String worker;
+
+    /** The path of the service worker, or null if it is not built. */
+    public String serviceWorker;
+
+    /** The flag whether the fragment of each page is built. */
+    public boolean fragment;
+
+    /**
+     * Hide constructor.
+     */
+    private ClientIndex() {
+    }
+
+    /**
+     * Build the index and the type shard of each package.
+     *
+     * @param letter The model of the site.
+     * @param site The output site.
+     * @param search The published path of the search index manifest.
+     * @param worker The published path of the search worker.
+     * @return The top-level index.
+     */
+    static ClientIndex build(Letter letter, SiteBuilder site, String search, String worker) {
+        Map<String, StringBuilder> types = new LinkedHashMap();
+        for (String name : letter.packages) {
+            types.put(name, new StringBuilder());
+        }
+
+        for (ClassInfo type : letter.types) {
+            StringBuilder shard = types.computeIfAbsent(type.packageName, key -> new StringBuilder());
+            shard.append(shard.isEmpty() ? "[" : ",").append("[\"").append(type.name).append("\",\"").append(type.type).append("\"]");
+        }
+
+        ClientIndex index = new ClientIndex();
+        index.modules.addAll(letter.modules);
+        index.docs.addAll(letter.docs);
+        index.search = search;
+        index.worker = worker;
+        types.forEach((name, shard) -> {
+            index.packages.add(name);
+            index.shards.add(site.build("index/" + name + ".json", shard.isEmpty() ? "[]" : shard.append("]").toString()));
+            BuildMetrics.count("shards", 1);
+        });
+        return index;
+    }
+}
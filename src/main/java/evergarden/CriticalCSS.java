@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import kiss.XML;
+
+/**
+ * Splits the global stylesheet by the class names which the pages actually use. Each page inlines
+ * the rules which match its own class names (the critical styles), and the global stylesheet is
+ * written at last without the rules which no page uses.
+ * <p>
+ * The class names which the scripts add at runtime can't be found in the pages, so they are listed
+ * in {@link #SCRIPTED} and always treated as used. The rules without any class selector (e.g. the
+ * element selectors of the normalize styles) and the at-rules (e.g. {@code @font-face}) are always
+ * kept, and the class names in the functional pseudo-classes (e.g. {@code :not(.hidden)}) are not
+ * required.
+ */
+class CriticalCSS {
+
+    /** The class selector. */
+    private static final Pattern CLASS = Pattern.compile("\\.(-?[_a-zA-Z][\\w-]*)");
+
+    /**
+     * The class names which the bundled scripts add at runtime. Keep this list in sync with the
+     * class operations ({@code add}, {@code set}, {@code toggle} and {@code reset}) in
+     * {@code main.js} and {@code mimic.js}, and with the scopes of highlight.js.
+     */
+    static final Set<String> SCRIPTED = Set.of(
+            // main.js : theme, navigation, select box, search hits and API tree
+            "light", "dark", "now", "fadeout", "select", "disabled", "active", "hits", "tree", "show", "expand", "doc", "sub", "foot",
+            // main.js : the kind of type or search hit
+            "Interface", "Functional", "AbstractClass", "Class", "Enum", "Record", "Annotation", "Exception", "Method", "Field",
+            "Constructor", "Document",
+            // mimic.js : custom element
+            "mimic",
+            // highlight.js : element and scopes
+            "hljs", "hljs-keyword", "hljs-built_in", "hljs-type", "hljs-literal", "hljs-number", "hljs-operator", "hljs-punctuation",
+            "hljs-property", "hljs-regexp", "hljs-string", "hljs-char", "hljs-subst", "hljs-symbol", "hljs-class", "hljs-function",
+            "hljs-variable", "hljs-title", "hljs-params", "hljs-comment", "hljs-doctag", "hljs-meta", "hljs-section", "hljs-tag",
+            "hljs-name", "hljs-attr", "hljs-attribute", "hljs-bullet", "hljs-code", "hljs-emphasis", "hljs-strong", "hljs-formula",
+            "hljs-link", "hljs-quote", "hljs-selector-tag", "hljs-selector-id", "hljs-selector-class", "hljs-selector-attr",
+            "hljs-selector-pseudo", "hljs-template-tag", "hljs-template-variable", "hljs-addition", "hljs-deletion", "escape_",
+            "language_", "constant_", "class_", "inherited__", "function_", "invoke__", "prompt_");
+
+    /** The parsed rules. */
+    private final List<Rule> rules;
+
+    /** The formatter of the written styles (e.g. the minifier). */
+    private final UnaryOperator<String> format;
+
+    /** The class names used by all pages. */
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    /** The critical styles of each set of class names. */
+    private final Map<Set<String>, String> subsets = new ConcurrentHashMap();
+
+    /** The flag whether all pages are rendered by this build. */
+    private volatile boolean complete = true;
+
+    /**
+     * Parse the global stylesheet.
+     *
+     * @param css The global stylesheet.
+     * @param format The formatter of the written styles.
+     */
+    CriticalCSS(String css, UnaryOperator<String> format) {
+        this.rules = parse(css, new int[1]);
+        this.format = format;
+    }
+
+    /**
+     * Compute the critical styles of the page and record its class names.
+     *
+     * @param root The root nodes of the page.
+     * @return The critical styles.
+     */
+    String inline(Iterable<XML> root) {
+        Set<String> classes = new TreeSet();
+        for (XML node : root) {
+            collect(node.to(), classes);
+        }
+        used.addAll(classes);
+
+        return subsets.computeIfAbsent(classes, key -> format.apply(write(rules, key, new StringBuilder()).toString()));
+    }
+
+    /**
+     * Mark that some page is not rendered by this build (e.g. the unchanged page in the
+     * incremental build), so its class names are unknown and no rule can be pruned.
+     */
+    void incomplete() {
+        complete = false;
+    }
+
+    /**
+     * Write the whole global stylesheet.
+     *
+     * @return The whole stylesheet.
+     */
+    String all() {
+        return format.apply(write(rules, null, new StringBuilder()).toString());
+    }
+
+    /**
+     * Write the global stylesheet without the rules which no page uses.
+     *
+     * @return The pruned stylesheet.
+     */
+    String prune() {
+        return format.apply(write(rules, complete ? used : null, new StringBuilder()).toString());
+    }
+
+    /**
+     * Collect the class names in the specified node.
+     *
+     * @param node A current node.
+     * @param classes The collected class names.
+     */
+    private static void collect(Node node, Set<String> classes) {
+        if (node instanceof Element element) {
+            for (String name : element.getAttribute("class").split("\\s+")) {
+                if (!name.isEmpty()) classes.add(name);
+            }
+        }
+
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            collect(child, classes);
+        }
+    }
+
+    /**
+     * Write the rules which match the specified class names.
+     *
+     * @param rules The rules to write.
+     * @param classes The used class names, or null to write all rules.
+     * @param output The output.
+     * @return The output.
+     */
+    private StringBuilder write(List<Rule> rules, Set<String> classes, StringBuilder output) {
+        for (Rule rule : rules) {
+            if (rule.children != null) {
+                StringBuilder nested = write(rule.children, classes, new StringBuilder());
+                if (!nested.isEmpty()) output.append(rule.head).append(" {\n").append(nested).append("}\n");
+            } else if (rule.body == null) {
+                output.append(rule.head).append(";\n");
+            } else if (classes == null || rule.head.startsWith("@") || matches(rule.head, classes)) {
+                output.append(rule.head).append(" {").append(rule.body).append("}\n");
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Test whether any selector in the list matches the used class names.
+     *
+     * @param selectors The selector list.
+     * @param classes The used class names.
+     * @return Result.
+     */
+    private boolean matches(String selectors, Set<String> classes) {
+        for (String selector : split(selectors)) {
+            boolean matched = true;
+            Matcher matcher = CLASS.matcher(compound(selector));
+            while (matched && matcher.find()) {
+                String name = matcher.group(1);
+                matched = classes.contains(name) || SCRIPTED.contains(name);
+            }
+            if (matched) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the arguments of the functional pseudo-classes (e.g. {@code :not(.hidden)} or
+     * {@code :is(.a, .b)}) and the attribute selectors from the selector. The class names in them
+     * are not required by the selector, so only the remaining class names must be used.
+     *
+     * @param selector A selector.
+     * @return The selector without any argument.
+     */
+    private static String compound(String selector) {
+        StringBuilder builder = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (c == '(' || c == '[') {
+                if (depth++ == 0) builder.append(c);
+            } else if (c == ')' || c == ']') {
+                if (--depth == 0) builder.append(c);
+            } else if (depth == 0) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Split the selector list by the top-level comma.
+     *
+     * @param selectors The selector list.
+     * @return The selectors.
+     */
+    private static List<String> split(String selectors) {
+        List<String> list = new ArrayList();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < selectors.length(); i++) {
+            char c = selectors.charAt(i);
+            if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                list.add(selectors.substring(start, i));
+                start = i + 1;
+            }
+        }
+        list.add(selectors.substring(start));
+        return list;
+    }
+
+    /**
+     * Parse the rules until the end of the current block.
+     *
+     * @param css The stylesheet.
+     * @param index The current position.
+     * @return The parsed rules.
+     */
+    private static List<Rule> parse(String css, int[] index) {
+        List<Rule> rules = new ArrayList();
+        StringBuilder head = new StringBuilder();
+
+        while (index[0] < css.length()) {
+            char c = css.charAt(index[0]++);
+            switch (c) {
+            case '/':
+                if (index[0] < css.length() && css.charAt(index[0]) == '*') {
+                    int end = css.indexOf("*/", index[0] + 1);
+                    index[0] = end == -1 ? css.length() : end + 2;
+                } else {
+                    head.append(c);
+                }
+                break;
+
+            case '"':
+            case '\'':
+                head.append(c).append(quoted(css, index, c));
+                break;
+
+            case ';':
+                if (!head.toString().isBlank()) rules.add(new Rule(head.toString().trim(), null, null));
+                head.setLength(0);
+                break;
+
+            case '{':
+                String selector = head.toString().trim();
+                head.setLength(0);
+
+                if (selector.startsWith("@media") || selector.startsWith("@supports") || selector.startsWith("@layer")) {
+                    rules.add(new Rule(selector, null, parse(css, index)));
+                } else {
+                    rules.add(new Rule(selector, block(css, index), null));
+                }
+                break;
+
+            case '}':
+                return rules;
+
+            default:
+                head.append(c);
+                break;
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Read the declaration block until its end.
+     *
+     * @param css The stylesheet.
+     * @param index The current position (just after the open brace).
+     * @return The declarations.
+     */
+    private static String block(String css, int[] index) {
+        StringBuilder body = new StringBuilder();
+        int depth = 0;
+
+        while (index[0] < css.length()) {
+            char c = css.charAt(index[0]++);
+            if (c == '"' || c == '\'') {
+                body.append(c).append(quoted(css, index, c));
+            } else if (c == '{') {
+                depth++;
+                body.append(c);
+            } else if (c == '}') {
+                if (depth-- == 0) break;
+                body.append(c);
+            } else {
+                body.append(c);
+            }
+        }
+        return body.toString();
+    }
+
+    /**
+     * Read the quoted text until the closing quote.
+     *
+     * @param css The stylesheet.
+     * @param index The current position (just after the open quote).
+     * @param quote The quote character.
+     * @return The quoted text with the closing quote.
+     */
+    private static String quoted(String css, int[] index, char quote) {
+        int start = index[0];
+        while (index[0] < css.length()) {
+            char c = css.charAt(index[0]++);
+            if (c == '\\') {
+                index[0]++;
+            } else if (c == quote) {
+                break;
+            }
+        }
+        return css.substring(start, Math.min(index[0], css.length()));
+    }
+
+    /**
+     * The style rule.
+     *
+     * @param head The selector list or the at-rule prelude.
+     * @param body The declarations, or null for the nested block and the statement.
+     * @param children The nested rules, or null for the style rule and the statement.
+     */
+    private record Rule(String head, String body, List<Rule> children) {
+    }
+}
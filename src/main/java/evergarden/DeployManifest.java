@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import kiss.I;
+
+/**
+ * Records the size and the content hash of every file of the published output, so that the next
+ * build can tell which files are added, modified and deleted. The deployment can upload and
+ * invalidate only those files.
+ * <p>
+ * The manifest of the previous output is read from the stored manifest if it exists, otherwise it
+ * is computed from the previous output on disk before it is overwritten.
+ */
+class DeployManifest {
+
+    /** The size and hash of each file keyed by the path relative to the output root. */
+    private final Map<String, Entry> entries = new ConcurrentSkipListMap();
+
+    /**
+     * Record the content of the specified file.
+     *
+     * @param path A relative path from the output root.
+     * @param bytes The content of the file.
+     */
+    void record(String path, byte[] bytes) {
+        entries.put(path, new Entry(bytes.length, BuildManifest.hex(BuildManifest.digest().digest(bytes))));
+    }
+
+    /**
+     * Record the file which is unchanged from the previous output.
+     *
+     * @param path A relative path from the output root.
+     * @param previous The manifest of the previous output.
+     * @param file The actual file.
+     */
+    void inherit(String path, DeployManifest previous, Path file) {
+        if (!entries.containsKey(path)) {
+            Entry entry = previous.entries.get(path);
+            if (entry != null) {
+                entries.put(path, entry);
+            } else if (Files.isRegularFile(file)) {
+                try {
+                    record(path, Files.readAllBytes(file));
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the content hash of the specified file.
+     *
+     * @param path A relative path from the output root.
+     * @return The content hash, or null if it is not recorded.
+     */
+    String hash(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? null : entry.hash;
+    }
+
+    /**
+     * List the recorded files.
+     *
+     * @return The relative paths from the output root.
+     */
+    Set<String> paths() {
+        return entries.keySet();
+    }
+
+    /**
+     * Compute the difference from the previous output.
+     *
+     * @param previous The manifest of the previous output.
+     * @return The delta.
+     */
+    Delta delta(DeployManifest previous) {
+        List<String> added = new ArrayList();
+        List<String> modified = new ArrayList();
+        List<String> deleted = new ArrayList();
+
+        entries.forEach((path, entry) -> {
+            Entry old = previous.entries.get(path);
+            if (old == null) {
+                added.add(path);
+            } else if (!old.equals(entry)) {
+                modified.add(path);
+            }
+        });
+
+        for (String path : previous.entries.keySet()) {
+            if (!entries.containsKey(path)) {
+                deleted.add(path);
+            }
+        }
+        return new Delta(added, modified, deleted);
+    }
+
+    /**
+     * Read the stored manifest.
+     *
+     * @param file The stored manifest.
+     * @return The stored manifest, or null if it is absent or broken.
+     */
+    static DeployManifest load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            DeployManifest manifest = new DeployManifest();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] values = line.split("\t");
+                if (values.length == 3) {
+                    manifest.entries.put(values[0], new Entry(Long.parseLong(values[1]), values[2]));
+                }
+            }
+            return manifest;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compute the manifest of the existing output. The hidden files (e.g. the build state) are not
+     * the output.
+     *
+     * @param root The output root.
+     * @return The computed manifest.
+     */
+    static DeployManifest scan(Path root) {
+        DeployManifest manifest = new DeployManifest();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    String path = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                    if (!path.startsWith(".") && !path.contains("/.")) {
+                        try {
+                            manifest.record(path, Files.readAllBytes(file));
+                        } catch (IOException e) {
+                            throw I.quiet(e);
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Write this manifest.
+     *
+     * @param file The stored manifest.
+     */
+    void store(Path file) {
+        List<String> lines = new ArrayList();
+        entries.forEach((path, entry) -> lines.add(path + "\t" + entry.size + "\t" + entry.hash));
+
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * The size and content hash of the file.
+     *
+     * @param size The file size.
+     * @param hash The content hash.
+     */
+    private record Entry(long size, String hash) {
+    }
+
+    /**
+     * The difference between the previous output and the current output.
+     *
+     * @param added The paths of the added files.
+     * @param modified The paths of the modified files.
+     * @param deleted The paths of the deleted files.
+     */
+    record Delta(List<String> added, List<String> modified, List<String> deleted) {
+
+        /**
+         * Write this delta in JSON.
+         *
+         * @return A JSON text.
+         */
+        String toJSON() {
+            StringBuilder builder = new StringBuilder("{\n");
+            append(builder, "added", added).append(",\n");
+            append(builder, "modified", modified).append(",\n");
+            append(builder, "deleted", deleted).append("\n}\n");
+            return builder.toString();
+        }
+
+        /**
+         * Write the list of paths in JSON.
+         *
+         * @param builder The output.
+         * @param name The property name.
+         * @param paths The paths.
+         * @return The output.
+         */
+        private static StringBuilder append(StringBuilder builder, String name, List<String> paths) {
+            builder.append("  \"").append(name).append("\": [");
+            String separator = "\n";
+            for (String path : paths) {
+                builder.append(separator).append("    \"").append(path.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"");
+                separator = ",\n";
+            }
+            return builder.append(paths.isEmpty() ? "]" : "\n  ]");
+        }
+    }
+}
@@ -10,6 +10,7 @@
 package evergarden;
 
 import java.nio.charset.Charset;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -17,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.type.TypeMirror;
@@ -50,13 +52,16 @@ public abstract class Letter {
      * The list of Java package names discovered within the project's source code
      * during scanning.
      */
-    public List<String> packages = new ArrayList();
+    public List<String> packages = new CopyOnWriteArrayList();
 
     /**
      * A collection of {@link ClassInfo} objects representing type definitions
      * (classes, interfaces, enums, records) parsed from the project's Java source files.
+     * <p>
+     * In the pipelined build, the pages are already rendered while the scan is still
+     * registering the types, so the registry is safely readable from the rendering threads.
      */
-    public List<ClassInfo> types = new ArrayList();
+    public List<ClassInfo> types = new CopyOnWriteArrayList();
 
     /**
      * A tree structure representing external documentation files (e.g., Markdown files)
@@ -114,6 +119,15 @@ public abstract class Letter {
      */
     public abstract Variable<Hosting> authority();
 
+    /**
+     * Returns the latest published date of this documentation project.
+     *
+     * @return the published date which the hosting reports, or the current date if it is unknown
+     */
+    public LocalDate date() {
+        return authority().map(Hosting::getLatestPublishedDate).or(LocalDate.now());
+    }
+
     /**
      * Returns the root documentation node from the {@link #docs} list, if available.
      * This is often used as the entry point for navigating the external documentation structure.
@@ -146,6 +160,17 @@ public abstract class Letter {
         return doodles.getOrDefault(id, Collections.EMPTY_LIST);
     }
 
+    /**
+     * Lists all registered sample code blocks.
+     *
+     * @return All samples.
+     */
+    final List<Doodle> doodles() {
+        List<Doodle> list = new ArrayList();
+        doodles.values().forEach(list::addAll);
+        return list;
+    }
+
     /**
      * Registers a new type into the repository, ensuring its package is recorded.
      *
@@ -159,6 +184,18 @@ public abstract class Letter {
         }
     }
 
+    /**
+     * Discards all collected modules, packages, types, documents and samples to build this letter
+     * again.
+     */
+    final void clear() {
+        modules.clear();
+        packages.clear();
+        types.clear();
+        docs.clear();
+        doodles.clear();
+    }
+
     /**
      * Registers a {@link Doodle} sample snippet with this project, organized by its ID.
      * If the ID already exists, the snippet is added to the list of existing samples.
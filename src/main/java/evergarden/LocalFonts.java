@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import kiss.I;
+
+/**
+ * The web fonts which are served from the site itself instead of Google Fonts. The font files of
+ * each configured family are read from the local font directory and written under
+ * {@code fonts/}, and the {@code @font-face} rules are bundled in the global stylesheet.
+ * <p>
+ * The font file is found by the family name without spaces (e.g. {@code MaterialIcons-Regular.woff2}
+ * for Material Icons), and its weight and style are read from the rest of the file name (e.g.
+ * {@code Inter-SemiBoldItalic.woff2}, {@code Inter-600.woff2} or the variable font
+ * {@code Inter[wght].woff2}).
+ * <p>
+ * The font files can be subsetted to the characters which the pages use by the external command
+ * (e.g. {@code pyftsubset} of fonttools), then all faces are written as woff2 after the pages are
+ * built.
+ */
+class LocalFonts {
+
+    /** The supported font file. */
+    private static final Pattern FILE = Pattern.compile(".+\\.(woff2|woff|ttf|otf)", Pattern.CASE_INSENSITIVE);
+
+    /** The numeric weight in the file name. */
+    private static final Pattern WEIGHT = Pattern.compile("(?<!\\d)([1-9]00)(?!\\d)");
+
+    /** The named weights, the compound names first. */
+    private static final String[][] WEIGHTS = {{"extralight", "200"}, {"ultralight", "200"}, {"semibold", "600"}, {"demibold", "600"},
+            {"extrabold", "800"}, {"ultrabold", "800"}, {"thin", "100"}, {"light", "300"}, {"regular", "400"}, {"medium", "500"},
+            {"bold", "700"}, {"black", "900"}, {"heavy", "900"}};
+
+    /** The font faces. */
+    private final List<Face> faces = new ArrayList();
+
+    /**
+     * Find the font files of the specified families.
+     *
+     * @param directory The local font directory.
+     * @param families The configured family names.
+     * @param missing The receiver of the family name which has no font file.
+     * @return The found fonts.
+     */
+    static LocalFonts scan(Path directory, Collection<String> families, Consumer<String> missing) {
+        List<Path> files = new ArrayList();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(file -> Files.isRegularFile(file) && FILE.matcher(file.getFileName().toString()).matches()).sorted().forEach(files::add);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+
+        LocalFonts local = new LocalFonts();
+        for (String family : I.signal(families).distinct().toList()) {
+            String key = normalize(family);
+            int found = 0;
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String base = normalize(name.substring(0, name.lastIndexOf('.')));
+                if (base.startsWith(key) && !claimed(local, file)) {
+                    local.faces.add(Face.of(family, file, base.substring(key.length())));
+                    found++;
+                }
+            }
+            if (found == 0) missing.accept(family);
+        }
+        return local;
+    }
+
+    /**
+     * Test whether the file is already used by the other family.
+     *
+     * @param local The found fonts.
+     * @param file A font file.
+     * @return Result.
+     */
+    private static boolean claimed(LocalFonts local, Path file) {
+        for (Face face : local.faces) {
+            if (face.file.equals(file)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Normalize the font name to compare.
+     *
+     * @param name A font name.
+     * @return The normalized name.
+     */
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[\\s_\\-]", "");
+    }
+
+    /**
+     * List the families which have no woff2 face, that is they are served in the larger format
+     * unless the fonts are subsetted.
+     *
+     * @return The family names.
+     */
+    List<String> withoutWOFF2() {
+        List<String> families = new ArrayList();
+        for (Face face : faces) {
+            if (!families.contains(face.family)) families.add(face.family);
+        }
+        for (Face face : faces) {
+            if (face.format().equals("woff2")) families.remove(face.family);
+        }
+        return families;
+    }
+
+    /**
+     * Write all font files and build the {@code @font-face} rules. In the subsetting mode, the
+     * faces are declared as woff2 but not written until {@link #subset(SiteBuilder, String, List)}
+     * is called, since the used characters are known only after all pages are built.
+     *
+     * @param site The output site.
+     * @param subsetting The flag whether the font files will be subsetted.
+     * @return The {@code @font-face} rules.
+     */
+    String publish(SiteBuilder site, boolean subsetting) {
+        StringBuilder css = new StringBuilder();
+        Set<String> paths = new HashSet();
+        for (Iterator<Face> iterator = faces.iterator(); iterator.hasNext();) {
+            Face face = iterator.next();
+            if (subsetting) {
+                String name = face.file.getFileName().toString();
+                face.published = "fonts/" + name.substring(0, name.lastIndexOf('.')) + ".woff2";
+                face.subsetted = true;
+
+                // the same face in the other format is converted to the same file
+                if (!paths.add(face.published)) {
+                    iterator.remove();
+                    continue;
+                }
+            } else {
+                try {
+                    face.published = site.build("fonts/" + face.file.getFileName(), Files.newInputStream(face.file));
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+            }
+            BuildMetrics.count("fonts", 1);
+
+            css.append("@font-face {\n");
+            css.append("  font-family: \"").append(face.family).append("\";\n");
+            css.append("  src: url(\"").append(face.published).append("\") format(\"").append(face.format()).append("\");\n");
+            css.append("  font-weight: ").append(face.weight).append(";\n");
+            css.append("  font-style: ").append(face.italic ? "italic" : "normal").append(";\n");
+            // the icon font shows its ligature name until loaded, so it should be invisible for a moment
+            css.append("  font-display: ").append(face.family.endsWith("Icons") ? "block" : "swap").append(";\n");
+            css.append("}\n");
+        }
+        return css.toString();
+    }
+
+    /**
+     * Subset all font files to the specified characters by the external command, and write them
+     * as woff2. The placeholders {@code {font}}, {@code {text}} and {@code {output}} in the command
+     * are replaced with the source font file, the text file of the characters and the output file.
+     * This must be called after {@link #publish(SiteBuilder, boolean)}.
+     *
+     * @param site The output site.
+     * @param glyphs The characters used in the pages.
+     * @param command The subsetter command.
+     */
+    void subset(SiteBuilder site, String glyphs, List<String> command) {
+        try {
+            Path text = Files.createTempFile("evergarden", ".txt");
+            try {
+                Files.writeString(text, glyphs);
+
+                for (Face face : faces) {
+                    Path output = Files.createTempFile("evergarden", ".woff2");
+                    try {
+                        List<String> args = new ArrayList();
+                        for (String arg : command) {
+                            args.add(arg.replace("{font}", face.file.toAbsolutePath().toString())
+                                    .replace("{text}", text.toString())
+                                    .replace("{output}", output.toString()));
+                        }
+
+                        Process process = new ProcessBuilder(args).redirectErrorStream(true).start();
+                        String log = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                        if (process.waitFor() != 0 || Files.size(output) == 0) {
+                            throw new Error("Fail to subset the font " + face.file + " by " + String.join(" ", args) + "\n" + log);
+                        }
+
+                        byte[] bytes = Files.readAllBytes(output);
+                        BuildMetrics.reduced("subset", face.published, Files.size(face.file), bytes.length);
+                        site.buildFont(face.published, bytes);
+                    } finally {
+                        Files.deleteIfExists(output);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(text);
+            }
+        } catch (IOException | InterruptedException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * List the published paths of the critical faces, that is the regular face of the first
+     * family (the base font of the design scheme), preferring woff2 to the other formats. This
+     * must be called after {@link #publish(SiteBuilder, boolean)}.
+     *
+     * @return The published paths to preload.
+     */
+    List<String> preloads() {
+        Face preload = null;
+        if (!faces.isEmpty()) {
+            String family = faces.getFirst().family;
+            for (Face face : faces) {
+                if (face.family.equals(family) && !face.italic && (face.weight.equals("400") || face.weight.equals("100 900"))) {
+                    if (preload == null || (face.format().equals("woff2") && !preload.format().equals("woff2"))) {
+                        preload = face;
+                    }
+                }
+            }
+        }
+        return preload == null ? List.of() : List.of(preload.published);
+    }
+
+    /**
+     * The font file of the font face.
+     */
+    private static class Face {
+
+        /** The family name. */
+        private final String family;
+
+        /** The font file. */
+        private final Path file;
+
+        /** The font weight, or the range of the variable font. */
+        private final String weight;
+
+        /** The italic style. */
+        private final boolean italic;
+
+        /** The published path. */
+        private String published;
+
+        /** The flag whether the font file is subsetted into woff2. */
+        private boolean subsetted;
+
+        /**
+         * @param family The family name.
+         * @param file The font file.
+         * @param weight The font weight.
+         * @param italic The italic style.
+         */
+        private Face(String family, Path file, String weight, boolean italic) {
+            this.family = family;
+            this.file = file;
+            this.weight = weight;
+            this.italic = italic;
+        }
+
+        /**
+         * Read the weight and style from the rest of the file name.
+         *
+         * @param family The family name.
+         * @param file The font file.
+         * @param rest The normalized file name without the family name.
+         * @return The font face.
+         */
+        private static Face of(String family, Path file, String rest) {
+            String weight = "400";
+            Matcher matcher = WEIGHT.matcher(rest);
+            if (rest.contains("wght") || rest.contains("variable")) {
+                weight = "100 900";
+            } else if (matcher.find()) {
+                weight = matcher.group(1);
+            } else {
+                for (String[] named : WEIGHTS) {
+                    if (rest.contains(named[0])) {
+                        weight = named[1];
+                        break;
+                    }
+                }
+            }
+            return new Face(family, file, weight, rest.contains("italic"));
+        }
+
+        /**
+         * Compute the format name of the font file.
+         *
+         * @return The format name.
+         */
+        private String format() {
+            if (subsetted) {
+                return "woff2";
+            }
+
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".woff2") ? "woff2" : name.endsWith(".woff") ? "woff" : name.endsWith(".ttf") ? "truetype" : "opentype";
+        }
+    }
+}
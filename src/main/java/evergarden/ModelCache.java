@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import evergarden.javadoc.ClassInfo;
+import evergarden.javadoc.ModelInput;
+import evergarden.javadoc.ModelOutput;
+import evergarden.web.CodeHighlight;
+import kiss.I;
+import kiss.Variable;
+import psychopath.Directory;
+import psychopath.Location;
+
+/**
+ * Stores the scanned model (types, documents, samples and the document tree) in the output
+ * directory, so the next build can restore it without starting the documentation tool when no
+ * relevant input has changed.
+ * <p>
+ * The stored model is keyed by the hash of the source and document files, the classpath, the
+ * external documents, the source encoding and the version of Evergarden. Any change of them
+ * discards the stored model.
+ */
+class ModelCache {
+
+    /** The file name of the stored model in the output directory. */
+    static final String NAME = ".evergarden.model";
+
+    /** The version of the binary form, increment it whenever the form is changed. */
+    private static final int FORMAT = 1;
+
+    /**
+     * Compute the key of the model which is scanned from the specified inputs.
+     *
+     * @param sources The source directories.
+     * @param documents The document directories.
+     * @param classpath The classpath.
+     * @param externals The external documents.
+     * @param encoding The source encoding.
+     * @return The model key.
+     */
+    static String key(List<Directory> sources, List<Directory> documents, List<Location> classpath, Map<String, String> externals, Charset encoding) {
+        List<String> values = new ArrayList();
+        values.add(String.valueOf(FORMAT));
+        values.add(String.valueOf(VioletEvergarden.class.getPackage().getImplementationVersion()));
+        values.add(encoding.name());
+
+        BuildManifest api = new BuildManifest();
+        api.inputs(sources);
+        api.inputs().forEach(key -> values.add("source:" + key + "=" + api.hash(key)));
+
+        BuildManifest doc = new BuildManifest();
+        doc.inputs(documents);
+        doc.inputs().forEach(key -> values.add("document:" + key + "=" + doc.hash(key)));
+
+        if (classpath != null) {
+            for (Location location : classpath) {
+                Path path = location.asJavaPath().toAbsolutePath();
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.filter(Files::isRegularFile).sorted().forEach(file -> {
+                        try {
+                            values.add("classpath:" + file.toString().replace(File.separatorChar, '/') + "=" + Files.size(file) + "@" + Files
+                                    .getLastModifiedTime(file)
+                                    .toMillis());
+                        } catch (IOException e) {
+                            throw I.quiet(e);
+                        }
+                    });
+                } catch (IOException e) {
+                    values.add("classpath:" + path + "=absent");
+                }
+            }
+        }
+
+        new TreeMap(externals).forEach((name, url) -> values.add("external:" + name + "=" + url));
+
+        BuildManifest key = new BuildManifest();
+        key.input("model", values);
+        return key.hash("model");
+    }
+
+    /**
+     * Restore the model which is stored with the specified key.
+     *
+     * @param root The output directory.
+     * @param key The model key.
+     * @param letter The letter to restore into.
+     * @param docs The document list to restore into.
+     * @return true if the model is restored, false if it is absent, stale or broken.
+     */
+    static boolean load(Directory root, String key, Letter letter, List<ClassInfo> docs) {
+        Path file = root.asJavaPath().resolve(NAME);
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+
+        try (ModelInput in = new ModelInput(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != FORMAT || !key.equals(in.readText())) {
+                return false;
+            }
+
+            in.readTypeTable();
+            in.readTypes(letter.types::addAll);
+            in.readTypes(docs::addAll);
+            letter.packages.addAll(in.readTexts());
+            letter.modules.addAll(in.readTexts());
+            letter.docs.addAll(readDocs(in));
+            for (int i = in.readInt(); 0 < i; i--) {
+                letter.register(new Doodle(in.readText(), in.readText(), in.readText(), Variable.of(in.readXML())));
+            }
+            in.readTexts().forEach(CodeHighlight::addLanguage);
+            in.link();
+            return true;
+        } catch (Throwable e) {
+            letter.clear();
+            docs.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Store the model with the specified key.
+     *
+     * @param root The output directory.
+     * @param key The model key.
+     * @param letter The scanned letter.
+     * @param docs The scanned documents.
+     */
+    static void store(Directory root, String key, Letter letter, List<ClassInfo> docs) {
+        Path file = root.create().asJavaPath().resolve(NAME);
+        Path temporary = file.resolveSibling(NAME + ".tmp");
+        List<ClassInfo> table = ClassInfo.collect(I.signal(letter.types).merge(I.signal(docs)).toList());
+
+        try (OutputStream stream = Files.newOutputStream(temporary);
+                ModelOutput out = new ModelOutput(new GZIPOutputStream(new BufferedOutputStream(stream)), table)) {
+            out.writeInt(FORMAT);
+            out.writeText(key);
+            out.writeTypeTable();
+            out.writeTypes(letter.types);
+            out.writeTypes(docs);
+            out.writeTexts(letter.packages);
+            out.writeTexts(letter.modules);
+            writeDocs(out, letter.docs);
+
+            List<Doodle> doodles = letter.doodles();
+            out.writeInt(doodles.size());
+            for (Doodle doodle : doodles) {
+                out.writeText(doodle.classID());
+                out.writeText(doodle.methodID());
+                out.writeText(doodle.code());
+                out.writeXML(doodle.comment());
+            }
+            out.writeTexts(CodeHighlight.languages());
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Write the document tree.
+     *
+     * @param out The model output.
+     * @param docs The document nodes.
+     * @throws IOException
+     */
+    private static void writeDocs(ModelOutput out, List<Letter.Doc> docs) throws IOException {
+        out.writeInt(docs.size());
+        for (Letter.Doc doc : docs) {
+            out.writeText(doc.title());
+            out.writeText(doc.path());
+            writeDocs(out, doc.subs());
+        }
+    }
+
+    /**
+     * Read the document tree.
+     *
+     * @param in The model input.
+     * @return The document nodes.
+     * @throws IOException
+     */
+    private static List<Letter.Doc> readDocs(ModelInput in) throws IOException {
+        int size = in.readInt();
+        List<Letter.Doc> docs = new ArrayList(size);
+        for (int i = 0; i < size; i++) {
+            docs.add(new Letter.Doc(in.readText(), in.readText(), readDocs(in)));
+        }
+        return docs;
+    }
+}
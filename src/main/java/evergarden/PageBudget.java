@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import kiss.XML;
+
+/**
+ * The upper limits of the weight of each generated page. A page which exceeds any limit is
+ * reported as a warning, or fails the build in the strict mode.
+ * <p>
+ * The weight is measured from the XML tree of the page: the serialized size, the number of
+ * elements, the number of code blocks and the number of the resources which the browser requests
+ * to show the page (stylesheets, scripts, images and icons). The resources on the other hosts
+ * (e.g. Google Fonts and jsDelivr) are also counted as the external requests.
+ */
+public final class PageBudget {
+
+    /** The maximum size of the page in bytes. */
+    private long bytes = Long.MAX_VALUE;
+
+    /** The maximum number of elements. */
+    private int nodes = Integer.MAX_VALUE;
+
+    /** The maximum number of code blocks. */
+    private int codes = Integer.MAX_VALUE;
+
+    /** The maximum number of requests. */
+    private int requests = Integer.MAX_VALUE;
+
+    /** The maximum number of requests to the other hosts. */
+    private int externals = Integer.MAX_VALUE;
+
+    /** The flag whether to fail the build when any page exceeds the budget. */
+    private boolean strict;
+
+    /**
+     * Limit the size of the page.
+     *
+     * @param bytes The maximum size in bytes.
+     * @return Chainable API.
+     */
+    public PageBudget bytes(long bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    /**
+     * Limit the number of elements in the page.
+     *
+     * @param nodes The maximum number of elements.
+     * @return Chainable API.
+     */
+    public PageBudget nodes(int nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * Limit the number of code blocks in the page.
+     *
+     * @param codes The maximum number of code blocks.
+     * @return Chainable API.
+     */
+    public PageBudget codes(int codes) {
+        this.codes = codes;
+        return this;
+    }
+
+    /**
+     * Limit the number of requests which the page triggers.
+     *
+     * @param requests The maximum number of requests.
+     * @return Chainable API.
+     */
+    public PageBudget requests(int requests) {
+        this.requests = requests;
+        return this;
+    }
+
+    /**
+     * Limit the number of requests to the other hosts which the page triggers.
+     *
+     * @param externals The maximum number of external requests.
+     * @return Chainable API.
+     */
+    public PageBudget externals(int externals) {
+        this.externals = externals;
+        return this;
+    }
+
+    /**
+     * Fail the build when any page exceeds the budget instead of warning.
+     *
+     * @return Chainable API.
+     */
+    public PageBudget strict() {
+        this.strict = true;
+        return this;
+    }
+
+    /**
+     * Test whether the build fails when any page exceeds the budget.
+     *
+     * @return Result.
+     */
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Check the weight of the page.
+     *
+     * @param weight The weight of the page.
+     * @return The exceeded limits, empty if the page is within the budget.
+     */
+    public List<String> check(Weight weight) {
+        List<String> violations = new ArrayList();
+        if (bytes < weight.bytes) violations.add("bytes " + weight.bytes + " > " + bytes);
+        if (nodes < weight.nodes) violations.add("nodes " + weight.nodes + " > " + nodes);
+        if (codes < weight.codes) violations.add("codes " + weight.codes + " > " + codes);
+        if (requests < weight.requests) violations.add("requests " + weight.requests + " > " + requests);
+        if (externals < weight.externals) violations.add("externals " + weight.externals + " > " + externals);
+        return violations;
+    }
+
+    /**
+     * The weight of the generated page.
+     *
+     * @param bytes The size of the page in bytes.
+     * @param nodes The number of elements.
+     * @param codes The number of code blocks.
+     * @param requests The number of requested resources.
+     * @param externals The number of requested resources on the other hosts.
+     */
+    public record Weight(long bytes, int nodes, int codes, int requests, int externals) {
+
+        /**
+         * Measure the weight of the page.
+         *
+         * @param root The root nodes of the page.
+         * @param bytes The serialized size of the page.
+         * @return The measured weight.
+         */
+        public static Weight of(Iterable<XML> root, long bytes) {
+            int[] counts = new int[2];
+            Set<String> resources = new LinkedHashSet();
+            for (XML node : root) {
+                walk(node.to(), counts, resources);
+            }
+
+            int externals = 0;
+            for (String resource : resources) {
+                if (resource.startsWith("http:") || resource.startsWith("https:") || resource.startsWith("//")) {
+                    externals++;
+                }
+            }
+            return new Weight(bytes, counts[0], counts[1], resources.size(), externals);
+        }
+
+        /**
+         * Count the elements, the code blocks and the requested resources.
+         *
+         * @param node A current node.
+         * @param counts The number of elements and code blocks.
+         * @param resources The requested resources.
+         */
+        private static void walk(Node node, int[] counts, Set<String> resources) {
+            if (node instanceof Element element) {
+                counts[0]++;
+
+                switch (element.getTagName()) {
+                case "pre":
+                    counts[1]++;
+                    break;
+
+                case "script":
+                case "img":
+                case "iframe":
+                case "source":
+                    request(element.getAttribute("src"), resources);
+                    break;
+
+                case "link":
+                    String rel = element.getAttribute("rel");
+                    if (rel.contains("stylesheet") || rel.contains("preload") || rel.contains("icon")) {
+                        request(element.getAttribute("href"), resources);
+                    }
+                    break;
+
+                case "use":
+                    request(element.getAttribute("href"), resources);
+                    break;
+                }
+            }
+
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                walk(child, counts, resources);
+            }
+        }
+
+        /**
+         * Register the requested resource.
+         *
+         * @param url A resource location.
+         * @param resources The requested resources.
+         */
+        private static void request(String url, Set<String> resources) {
+            if (url != null && !url.isEmpty() && !url.startsWith("#") && !url.startsWith("data:")) {
+                int index = url.indexOf('#');
+                resources.add(index == -1 ? url : url.substring(0, index));
+            }
+        }
+    }
+}
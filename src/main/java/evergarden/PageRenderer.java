@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+import evergarden.javadoc.ClassInfo;
+import evergarden.javadoc.MemberInfo;
+import evergarden.page.APIPage;
+import evergarden.page.DocumentPage;
+import evergarden.page.Page;
+import kiss.I;
+import kiss.XML;
+import psychopath.Directory;
+
+/**
+ * Renders the pages of a build and writes them through the {@link SiteBuilder}.
+ * <p>
+ * Pages are independent of each other, so they are rendered concurrently by the configured number
+ * of threads. A page can be submitted as soon as the model it is rendered from is complete, even
+ * while the sources are still being scanned.
+ * <p>
+ * In the incremental build, the pages which are rendered from exactly the same inputs as the
+ * previous build are skipped and the inputs of each page are recorded in the {@link BuildManifest}.
+ */
+class PageRenderer implements AutoCloseable {
+
+    /** The output site. */
+    final SiteBuilder site;
+
+    /** The letter to render. */
+    private final Letter letter;
+
+    /** The flag whether to skip the unchanged pages. */
+    private final boolean incremental;
+
+    /** The manifest of the previous build. */
+    private final BuildManifest previous;
+
+    /** The manifest of the current build. */
+    private final BuildManifest current;
+
+    /** The rendering threads, null to render on the calling thread. */
+    private final ExecutorService executor;
+
+    /** The submitted tasks which return false if the page was skipped. */
+    private final List<Future<Boolean>> tasks = Collections.synchronizedList(new ArrayList());
+
+    /** The types whose API page is already submitted. */
+    private final Set<ClassInfo> submitted = ConcurrentHashMap.newKeySet();
+
+    /** The known input keys of each rendered page. */
+    private final Map<String, Set<String>> inputs = new ConcurrentHashMap();
+
+    /** The pages which each rendered page links to. */
+    private final Map<String, Set<String>> links = new ConcurrentHashMap();
+
+    /**
+     * @param letter The letter to render.
+     * @param site The output site.
+     * @param incremental The flag whether to skip the unchanged pages.
+     * @param threads The number of rendering threads.
+     * @param sources The source directories.
+     * @param documents The document directories.
+     */
+    PageRenderer(Letter letter, SiteBuilder site, boolean incremental, int threads, List<Directory> sources, List<Directory> documents) {
+        this.letter = letter;
+        this.site = site;
+        this.incremental = incremental;
+        this.previous = incremental ? BuildManifest.load(letter.address()) : new BuildManifest();
+        this.current = new BuildManifest();
+        this.executor = threads <= 1 ? null : Executors.newFixedThreadPool(threads, worker(Tool.DOLL.get()));
+
+        if (incremental) {
+            site.preserve();
+            current.inputs(sources);
+
+            BuildManifest docs = new BuildManifest();
+            docs.inputs(documents);
+            current.input(BuildManifest.DOCUMENTS, I.signal(docs.inputs()).map(key -> key + docs.hash(key)).toList());
+        }
+    }
+
+    /**
+     * Create the factory of the rendering threads. The threads don't inherit the thread-local
+     * values, since they may be created while scanning and must not keep the compiler environment
+     * reachable. Only the configuration is carried over, the build metrics are bound to each task
+     * (see {@link #submit(Supplier)}).
+     *
+     * @param doll The current configuration.
+     * @return A thread factory.
+     */
+    private static ThreadFactory worker(VioletEvergarden doll) {
+        return task -> new Thread(null, () -> {
+            Tool.DOLL.set(doll);
+            task.run();
+        }, "Evergarden Renderer", 0, false);
+    }
+
+    /**
+     * Register the site-wide settings which every page depends on. This must be called before
+     * submitting any page.
+     *
+     * @param values The site-wide settings.
+     */
+    void global(List<?> values) {
+        current.input(BuildManifest.GLOBAL, values);
+    }
+
+    /**
+     * Submit the API page of the specified type unless it is already submitted.
+     *
+     * @param info A target type.
+     */
+    void api(ClassInfo info) {
+        if (submitted.add(info)) {
+            submit(() -> {
+                APIPage page = new APIPage("api/" + info.id() + ".html", letter, info);
+                current.input("page:" + page.path, signature(info));
+
+                return render(page, BuildManifest.GLOBAL, "page:" + page.path, source(info));
+            });
+        }
+    }
+
+    /**
+     * Submit the document page of the specified type.
+     *
+     * @param info A target document.
+     */
+    void document(ClassInfo info) {
+        submit(() -> render(new DocumentPage("doc/" + info.id() + ".html", letter, info), BuildManifest.GLOBAL, BuildManifest.DOCUMENTS));
+    }
+
+    /**
+     * Submit the page which is always rendered.
+     *
+     * @param page A target page.
+     */
+    void page(Page page) {
+        submit(() -> {
+            site.buildHTML(page);
+            return true;
+        });
+    }
+
+    /**
+     * Submit the rendering task.
+     *
+     * @param task A task which returns false if the page was skipped.
+     */
+    private void submit(Supplier<Boolean> task) {
+        Supplier<Boolean> bound = BuildMetrics.bind(task);
+
+        if (executor != null) {
+            tasks.add(executor.submit(bound::get));
+        } else {
+            FutureTask<Boolean> future = new FutureTask(bound::get);
+            future.run();
+            tasks.add(future);
+        }
+    }
+
+    /**
+     * Render the page unless it is up to date in the incremental build, and record the inputs which
+     * the page is rendered from.
+     *
+     * @param page The page to build.
+     * @param keys The known input keys of the page.
+     * @return true if the page was rendered, false if it was skipped.
+     */
+    private boolean render(Page page, String... keys) {
+        if (incremental && previous.isUpToDate(page.path, current) && site.exists(page.path) && site.fragmented(page.path)) {
+            current.depend(page.path, previous.dependencies(page.path));
+            site.keep(page.path);
+            return false;
+        }
+
+        site.buildHTML(page);
+        if (!incremental) return true;
+
+        // The page must be rendered again when any type it links to is changed. The links are
+        // resolved into the source files at last, because the linked types may not be scanned
+        // yet when the page is rendered.
+        Set<String> linked = new LinkedHashSet();
+        for (XML node : page.root) {
+            for (XML link : node.find("a[href]")) {
+                String href = link.attr("href").replace("../", "");
+                int index = href.indexOf('#');
+                linked.add(index == -1 ? href : href.substring(0, index));
+            }
+        }
+        inputs.put(page.path, new LinkedHashSet(List.of(keys)));
+        links.put(page.path, linked);
+        return true;
+    }
+
+    /**
+     * Wait for all submitted pages and complete the manifest of this build. The pages which are no
+     * longer generated are deleted in the incremental build.
+     *
+     * @param docs All documents.
+     * @return The number of skipped pages.
+     */
+    int complete(List<ClassInfo> docs) {
+        try {
+            int skipped = 0;
+            for (Future<Boolean> task : List.copyOf(tasks)) {
+                if (!task.get()) skipped++;
+            }
+
+            if (incremental) {
+                Map<String, String> sources = new ConcurrentHashMap();
+                for (ClassInfo info : letter.types) {
+                    sources.put("api/" + info.id() + ".html", source(info));
+                }
+                for (ClassInfo info : docs) {
+                    sources.put("doc/" + info.id() + ".html", source(info));
+                }
+
+                inputs.forEach((page, keys) -> {
+                    for (String link : links.get(page)) {
+                        String source = sources.get(link);
+                        if (source != null) keys.add(source);
+                    }
+                    current.depend(page, keys);
+                });
+
+                // delete the pages which are no longer generated
+                for (String page : previous.pages()) {
+                    if (current.dependencies(page).isEmpty()) {
+                        site.delete(page);
+                    }
+                }
+                current.store(letter.address());
+            }
+            return skipped;
+        } catch (ExecutionException e) {
+            throw I.quiet(e.getCause());
+        } catch (InterruptedException e) {
+            throw I.quiet(e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Stop the rendering threads. The pages which are still rendering are interrupted, so this is
+     * also called when the build fails before {@link #complete(List)}.
+     */
+    @Override
+    public void close() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Compute the key of the source file which declares the specified type.
+     *
+     * @param info A target type.
+     * @return The source file key.
+     */
+    private static String source(ClassInfo info) {
+        ClassInfo root = info.outermost();
+        return root.packageName.replace('.', '/') + "/" + root.name + ".java";
+    }
+
+    /**
+     * Collect the contents of the API page which are not derived from its own source file.
+     *
+     * @param info A target type.
+     * @return The derived contents.
+     */
+    private List<String> signature(ClassInfo info) {
+        List<String> values = new ArrayList();
+        for (XML sub : info.createSubTypes()) {
+            values.add(sub.text());
+        }
+        for (MemberInfo member : I.signal(info.fields()).as(MemberInfo.class).merge(I.signal(info.constructors()), I.signal(info.methods())).toList()) {
+            for (Doodle doodle : letter.doodle(info.id() + "#" + member.id())) {
+                values.add(doodle.code());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import evergarden.javadoc.ClassInfo;
+import evergarden.javadoc.FieldInfo;
+import evergarden.javadoc.MemberInfo;
+import evergarden.javadoc.MethodInfo;
+import kiss.I;
+import kiss.XML;
+
+/**
+ * The inverted index of the site which the search worker ({@code search.js}) queries on the client
+ * side. The terms are collected from the type names, the member ids (including the parameter
+ * types), the titles and the rendered comment text, and each term is weighted by where it appears.
+ * <p>
+ * The index is chunked by the first two characters of the term ({@code search/<prefix>.json}), so
+ * a query loads only the chunks of its own terms. The entries are listed in
+ * {@code search/docs.json} and the published path of each file is listed in
+ * {@code search/index.json}.
+ */
+class SearchIndex {
+
+    /** The weight of the term in the name. */
+    private static final int NAME = 8;
+
+    /** The weight of the term in the signature. */
+    private static final int SIGNATURE = 3;
+
+    /** The weight of the term in the comment. */
+    private static final int TEXT = 1;
+
+    /** The entries as [title, url, kind]. */
+    private final List<String[]> entries = new ArrayList();
+
+    /** The score of each entry per term. */
+    private final Map<String, Map<Integer, Integer>> terms = new TreeMap();
+
+    /**
+     * Index all types, members and documents.
+     *
+     * @param letter The model of the site.
+     * @param docs The documents.
+     * @return Chainable API.
+     */
+    SearchIndex index(Letter letter, List<ClassInfo> docs) {
+        for (ClassInfo type : letter.types) {
+            String url = "api/" + type.id() + ".html";
+            int entry = entry(type.id(), url, type.type);
+            add(entry, type.name, NAME);
+            add(entry, type.packageName, TEXT);
+            add(entry, text(type.contents()), TEXT);
+
+            for (MemberInfo member : I.signal(type.fields()).as(MemberInfo.class).merge(I.signal(type.constructors()), I.signal(type.methods())).toList()) {
+                entry = entry(type.name + "." + member.id(), url + "#" + member.id(), member instanceof MethodInfo ? "Method"
+                        : member instanceof FieldInfo ? "Field" : "Constructor");
+                add(entry, member.name, NAME);
+                add(entry, member.id(), SIGNATURE);
+                add(entry, type.name, TEXT);
+                add(entry, text(member.contents()), TEXT);
+            }
+        }
+
+        for (ClassInfo doc : docs) {
+            String url = "doc/" + doc.id() + ".html";
+            for (Document child : doc.children()) {
+                int entry = entry(child.title(), url + "#" + child.id(), "Document");
+                add(entry, child.title(), NAME);
+                add(entry, text(child.contents()), TEXT);
+
+                for (Document foot : child.children()) {
+                    entry = entry(foot.title(), url + "#" + foot.id(), "Document");
+                    add(entry, foot.title(), NAME);
+                    add(entry, text(foot.contents()), TEXT);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Register the entry.
+     *
+     * @param title The title to show.
+     * @param url The location of the entry.
+     * @param kind The kind of the entry.
+     * @return The entry index.
+     */
+    int entry(String title, String url, String kind) {
+        entries.add(new String[] {title, url, kind});
+        return entries.size() - 1;
+    }
+
+    /**
+     * Add all terms in the specified text.
+     *
+     * @param entry The entry index.
+     * @param text A text to index.
+     * @param weight The weight of the terms.
+     */
+    void add(int entry, String text, int weight) {
+        if (text != null) {
+            for (String term : tokenize(text)) {
+                Map<Integer, Integer> scores = terms.computeIfAbsent(term, key -> new TreeMap());
+                scores.merge(entry, weight, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Split the text into the lower-case terms. The identifier is indexed both as a whole and by
+     * its camel case words (e.g. getTypeName, get, type and name).
+     *
+     * @param text A text to split.
+     * @return The terms.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList();
+        for (String word : text.split("[^\\p{L}\\p{N}_]+")) {
+            if (2 <= word.length()) {
+                terms.add(word.toLowerCase(Locale.ROOT));
+
+                String[] parts = word.split("_|(?<=\\p{Ll})(?=\\p{Lu})|(?<=\\p{Lu})(?=\\p{Lu}\\p{Ll})");
+                if (1 < parts.length) {
+                    for (String part : parts) {
+                        if (2 <= part.length()) terms.add(part.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Compute the chunk key of the term.
+     *
+     * @param term A term.
+     * @return The chunk key.
+     */
+    static String chunk(String term) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            char c = term.charAt(i);
+            key.append(('a' <= c && c <= 'z') || ('0' <= c && c <= '9') ? c : '_');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Extract the plain text of the rendered comment.
+     *
+     * @param xml The rendered comment.
+     * @return The plain text.
+     */
+    private static String text(XML xml) {
+        return xml == null ? null : xml.text();
+    }
+
+    /**
+     * Write the index files.
+     *
+     * @param site The output site.
+     * @return The published path of the index manifest.
+     */
+    String build(SiteBuilder site) {
+        StringBuilder docs = new StringBuilder("[");
+        for (int i = 0; i < entries.size(); i++) {
+            String[] entry = entries.get(i);
+            if (i != 0) docs.append(',');
+            docs.append('[').append(BuildManifest.quote(entry[0])).append(',').append(BuildManifest.quote(entry[1])).append(',').append(BuildManifest.quote(entry[2])).append(']');
+        }
+        docs.append(']');
+
+        Map<String, StringBuilder> chunks = new TreeMap();
+        terms.forEach((term, scores) -> {
+            StringBuilder chunk = chunks.computeIfAbsent(chunk(term), key -> new StringBuilder());
+            chunk.append(chunk.isEmpty() ? "{" : ",").append(BuildManifest.quote(term)).append(":[");
+            String separator = "";
+            for (Map.Entry<Integer, Integer> score : scores.entrySet()) {
+                chunk.append(separator).append(score.getKey()).append(',').append(score.getValue());
+                separator = ",";
+            }
+            chunk.append(']');
+        });
+
+        StringBuilder manifest = new StringBuilder("{\"docs\":").append(BuildManifest.quote(site.build("search/docs.json", docs.toString())))
+                .append(",\"chunks\":{");
+        String separator = "";
+        for (Map.Entry<String, StringBuilder> chunk : chunks.entrySet()) {
+            String path = site.build("search/" + chunk.getKey() + ".json", chunk.getValue().append('}').toString());
+            manifest.append(separator).append(BuildManifest.quote(chunk.getKey())).append(':').append(BuildManifest.quote(path));
+            separator = ",";
+        }
+        manifest.append("}}");
+
+        BuildMetrics.count("search.entries", entries.size());
+        BuildMetrics.count("search.terms", terms.size());
+        return site.build("search/index.json", manifest.toString());
+    }
+}
@@ -9,13 +9,40 @@
  */
 package evergarden;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
+import org.w3c.dom.Node;
+
+import evergarden.BuildEvents.PageRender;
 import evergarden.page.Page;
 import evergarden.web.HTML;
+import evergarden.web.Minify;
 import kiss.I;
 import kiss.XML;
 import psychopath.Directory;
@@ -31,31 +58,617 @@ import stylist.Stylist;
  * This builder manages the root output directory, ensures proper cleanup of previous builds
  * (excluding protected files), and provides methods for writing various file types to the
  * filesystem.
+ * <p>
+ * The output can be written straight into a zip archive (see {@link #archive(Path)}) without any
+ * intermediate file on disk.
+ * <p>
+ * In the synchronizing mode (see {@link #sync()}), the previous output is not wiped. A file is
+ * written only when its content differs from the existing file, so the unchanged files keep their
+ * modification time, and the files which are no longer produced are deleted by {@link #sweep()}.
  */
-public class SiteBuilder {
+public class SiteBuilder implements AutoCloseable {
 
-    /** The root directory. */
-    private final Directory root;
+    /** The root directory, it is opened lazily in the archive. */
+    private Directory root;
+
+    /** The archive file to write into, or null to write into the directory. */
+    private final Path archive;
+
+    /** The file system of the opened archive. */
+    private FileSystem system;
 
     /** The initial protectable file pattern. */
     private List<String> protectable = I.list("!**@.*");
 
+    /** The flag whether to delete all existing files before the first output. */
+    private boolean clean = true;
+
+    /** The flag whether the root directory is ready for output. */
+    private boolean prepared;
+
+    /** The flag whether to write only the changed files. */
+    private boolean sync;
+
+    /** The paths of the files which are produced by this build. */
+    private final Set<String> produced = ConcurrentHashMap.newKeySet();
+
+    /** The minimum size of the file to compress, or -1 not to compress. */
+    private int compression = -1;
+
+    /** The flag whether to minify the generated HTML, CSS and JS. */
+    private boolean minify;
+
+    /** The paths of the scripts to minify, the others are written as they are. */
+    private final Set<String> scripts = new TreeSet();
+
+    /** The flag whether to add the content hash to the asset names. */
+    private boolean fingerprint;
+
+    /** The published name of each fingerprinted asset. */
+    private final Map<String, String> assets = new ConcurrentSkipListMap();
+
+    /** The weight of each built page, or null not to measure. */
+    private Map<String, PageBudget.Weight> weights;
+
+    /** The stored manifest of the published files, or null not to compute the delta. */
+    private Path deployment;
+
+    /** The manifest of the previous output. */
+    private DeployManifest deployed;
+
+    /** The manifest of this output. */
+    private final DeployManifest deploying = new DeployManifest();
+
+    /** The flag whether to record the content hash of each output file for the precache. */
+    private boolean precache;
+
+    /** The flag whether to write the fragment of each page. */
+    private boolean fragment;
+
+    /** The global stylesheet which is split into the critical styles, or null not to inline. */
+    private CriticalCSS critical;
+
+    /** The self-hosted font files to preload, or null to use Google Fonts. */
+    private List<String> fonts;
+
+    /** The characters used in all pages. */
+    private final BitSet glyphs = new BitSet();
+
+    /** The number of the files which are written or deleted by this build. */
+    private final LongAdder changes = new LongAdder();
+
+    /** The flag whether all pages are rendered by this build. */
+    private volatile boolean complete = true;
+
+    /** The running compressions. */
+    private final List<CompletableFuture<Compression>> compressions = Collections.synchronizedList(new ArrayList());
+
     /**
      * Hide constructor
      */
-    private SiteBuilder(Directory root) {
-        this.root = Objects.requireNonNull(root);
+    private SiteBuilder(Directory root, Path archive) {
+        this.root = root;
+        this.archive = archive;
+    }
+
+    /**
+     * Prepare the root directory before the first output. The existing files are deleted lazily so
+     * that the configuration (e.g. {@link #guard(String...)}) is applied to the cleanup.
+     */
+    private synchronized void prepare() {
+        if (!prepared) {
+            prepared = true;
+
+            // read the previous output before it is overwritten
+            if (deployment != null && deployed == null) {
+                deployed = DeployManifest.load(deployment);
+                if (deployed == null) {
+                    if (archive == null) {
+                        deployed = DeployManifest.scan(root.asJavaPath());
+                    } else if (Files.isRegularFile(archive)) {
+                        try (FileSystem previous = FileSystems.newFileSystem(archive)) {
+                            deployed = DeployManifest.scan(previous.getPath("/"));
+                        } catch (IOException e) {
+                            throw I.quiet(e);
+                        }
+                    } else {
+                        deployed = new DeployManifest();
+                    }
+                }
+            }
+
+            if (archive != null) {
+                try {
+                    // the archive is written from scratch unless the previous output is reused
+                    if (clean && !sync) Files.deleteIfExists(archive);
+                    if (archive.getParent() != null) Files.createDirectories(archive.getParent());
+
+                    system = FileSystems.newFileSystem(archive, Map.of("create", "true"));
+                    root = Locator.directory(system.getPath("/"));
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+                return;
+            }
+
+            if (!clean || sync) {
+                root.create();
+                return;
+            }
+
+            // delete all existing files
+            root.create().delete(protectable.toArray(String[]::new));
+        }
+    }
+
+    /**
+     * Get the prepared root directory.
+     * 
+     * @return The root directory.
+     */
+    private Directory root() {
+        prepare();
+        return root;
+    }
+
+    /**
+     * Write all pending entries and close the archive. The output is written into the archive
+     * file at this point. This does nothing for the directory output.
+     */
+    @Override
+    public synchronized void close() {
+        if (system != null) {
+            finish();
+
+            try {
+                system.close();
+            } catch (IOException e) {
+                throw I.quiet(e);
+            } finally {
+                system = null;
+                root = null;
+                prepared = false;
+            }
+        }
+    }
+
+    /**
+     * Keep the previous output and write only the files whose content has changed. The files
+     * which are not produced by this build are deleted by {@link #sweep()}.
+     * 
+     * @return Chainable API.
+     */
+    public final SiteBuilder sync() {
+        this.sync = true;
+        return this;
+    }
+
+    /**
+     * Write the gzip compressed sibling ({@code *.gz}) of each text file (HTML, CSS, JS and SVG)
+     * whose size is the specified threshold or more, so that the static hosts can serve it without
+     * compressing at runtime. The files are compressed at the maximum level in parallel with the
+     * build.
+     * 
+     * @param threshold The minimum size of the file to compress in bytes.
+     * @return Chainable API.
+     */
+    public final SiteBuilder compress(int threshold) {
+        this.compression = Math.max(0, threshold);
+        return this;
+    }
+
+    /**
+     * Minify the generated files for production. HTML is written without the whitespace between
+     * the block elements, CSS and the specified scripts are written without comments and redundant
+     * whitespaces. The other scripts (e.g. the third-party scripts which are minified upstream) are
+     * written as they are. The size savings of each file are recorded in the build metrics.
+     * 
+     * @param scripts The paths of the scripts to minify.
+     * @return Chainable API.
+     */
+    public final SiteBuilder minify(String... scripts) {
+        this.minify = true;
+        this.scripts.addAll(List.of(scripts));
+        return this;
+    }
+
+    /**
+     * Add the content hash to the name of each asset (e.g. {@code main.3f9a1c2b.css}), so that the
+     * assets can be served with {@code Cache-Control: immutable} and the changed asset is fetched
+     * as a new file. The pages refer to the published names which {@link #asset(String)} resolves,
+     * so the assets must be built before the pages which refer to them. The assets published under
+     * the previous names are deleted by {@link #buildAssetManifest(String)}.
+     * 
+     * @return Chainable API.
+     */
+    public final SiteBuilder fingerprint() {
+        this.fingerprint = true;
+        return this;
+    }
+
+    /**
+     * Record the size and content hash of each output file in the specified manifest, and compare
+     * them with the previous output to list the added, modified and deleted files (see
+     * {@link #buildDelta(Path)}). If the manifest doesn't exist yet, the previous output on disk is
+     * read instead.
+     * 
+     * @param manifest A path to the stored manifest.
+     * @return Chainable API.
+     */
+    public final SiteBuilder deploy(Path manifest) {
+        this.deployment = Objects.requireNonNull(manifest);
+        return this;
+    }
+
+    /**
+     * Write the added, modified and deleted files since the previous output in JSON and store the
+     * manifest of this output. The previous files which are kept in the output (e.g. by
+     * {@link #guard(String...)}) are not deleted. This must be called after all files are built
+     * and swept (see {@link #finish()} and {@link #sweep()}).
+     * 
+     * @param output A path to the delta file.
+     * @return The number of the changed files.
+     */
+    public final int buildDelta(Path output) {
+        if (deployment == null) {
+            return 0;
+        }
+
+        Directory root = root();
+        for (String path : produced) {
+            deploying.inherit(path, deployed, root.file(path).asJavaPath());
+        }
 
-        // delete all existing files
-        root.create().delete(protectable.toArray(String[]::new));
+        // the guarded and preserved files are still deployed even if this build doesn't write them
+        for (String path : deployed.paths()) {
+            Path file = root.file(path).asJavaPath();
+            if (Files.isRegularFile(file)) deploying.inherit(path, deployed, file);
+        }
 
-        // There is a time lag until the OS releases the handle of the deleted file, so wait a
-        // little. AccessDeniedException may occur when going straight.
+        DeployManifest.Delta delta = deploying.delta(deployed);
         try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
+            if (output.getParent() != null) Files.createDirectories(output.getParent());
+            Files.writeString(output, delta.toJSON());
+        } catch (IOException e) {
             throw I.quiet(e);
         }
+        deploying.store(deployment);
+
+        return delta.added().size() + delta.modified().size() + delta.deleted().size();
+    }
+
+    /**
+     * Inline the critical styles in each page, that is the rules of the specified global
+     * stylesheet which match the class names in the page. The global stylesheet is loaded without
+     * blocking the rendering, so it must be written by {@link #buildCriticalCSS(String)} after all
+     * pages are built, then it is not fingerprinted.
+     * 
+     * @param css The global stylesheet.
+     * @return Chainable API.
+     */
+    public final SiteBuilder inline(String css) {
+        this.critical = new CriticalCSS(css, text -> minify ? Minify.css(text) : text);
+        return this;
+    }
+
+    /**
+     * Write the global stylesheet without the rules which no page uses. If any page is not
+     * rendered by this build (see {@link #keep(String)}), all rules are written.
+     * 
+     * @param path A relative path from the root directory.
+     * @return A path to the generated file, or null if the critical styles are not inlined.
+     */
+    public final String buildCriticalCSS(String path) {
+        if (critical == null) {
+            return null;
+        }
+
+        String full = critical.all();
+        String pruned = critical.prune();
+        BuildMetrics.reduced("prune", path, full.length(), pruned.length());
+        return write(path, pruned.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Use the self-hosted fonts instead of Google Fonts. The specified font files are preloaded by
+     * each page, and the characters used in the pages are collected to subset the fonts (see
+     * {@link #buildGlyphs(String)}).
+     * 
+     * @param preloads The published paths of the font files to preload.
+     * @return Chainable API.
+     */
+    public final SiteBuilder fonts(List<String> preloads) {
+        this.fonts = List.copyOf(preloads);
+        return this;
+    }
+
+    /**
+     * Write all characters used in the pages as UTF-8 text, which the font subsetter (e.g.
+     * {@code pyftsubset --text-file}) can read. If any page is not rendered by this build (see
+     * {@link #keep(String)}), the characters of the previous output are also written.
+     * 
+     * @param path A relative path from the root directory.
+     * @return A path to the generated file, or null if the self-hosted fonts are not used.
+     */
+    public final String buildGlyphs(String path) {
+        if (fonts == null) {
+            return null;
+        }
+
+        String text = glyphs(path);
+        BuildMetrics.count("glyphs", text.codePointCount(0, text.length()));
+        return write(path, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * List all characters used in the pages. If any page is not rendered by this build (see
+     * {@link #keep(String)}), the characters in the previous output of
+     * {@link #buildGlyphs(String)} are also listed.
+     * 
+     * @param path A relative path of the previous output from the root directory.
+     * @return The used characters.
+     */
+    public final String glyphs(String path) {
+        StringBuilder text = new StringBuilder();
+        synchronized (glyphs) {
+            if (!complete && exists(path)) {
+                try {
+                    Files.readString(root().file(path).asJavaPath()).codePoints().forEach(glyphs::set);
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+            }
+            glyphs.stream().forEach(text::appendCodePoint);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the font file which is subsetted to the characters used in the pages. It is written
+     * after all pages are built like the pruned stylesheet (see {@link #buildCriticalCSS(String)}),
+     * so it is not fingerprinted.
+     * 
+     * @param path A relative path from the root directory.
+     * @param bytes The subsetted font.
+     * @return A path to the generated file.
+     */
+    public final String buildFont(String path, byte[] bytes) {
+        return write(path, bytes);
+    }
+
+    /**
+     * Collect the characters in the text of the specified node.
+     * 
+     * @param node A current node.
+     * @param glyphs The collected characters.
+     */
+    private static void glyphs(Node node, BitSet glyphs) {
+        if (node.getNodeType() == Node.TEXT_NODE) {
+            node.getNodeValue().codePoints().filter(c -> !Character.isWhitespace(c) && !Character.isISOControl(c)).forEach(glyphs::set);
+        }
+
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            glyphs(child, glyphs);
+        }
+    }
+
+    /**
+     * Write the fragment of each page ({@code fragment/<path>.json}) which holds only the title,
+     * the article and the aside, so that the in-site navigation can replace the contents without
+     * loading the whole page. The full page is still written for the direct access and the
+     * crawlers.
+     * 
+     * @return Chainable API.
+     */
+    public final SiteBuilder fragment() {
+        this.fragment = true;
+        return this;
+    }
+
+    /**
+     * Check whether the fragment of the specified page exists. It is always true if the fragment
+     * is not written.
+     * 
+     * @param path A relative path of the page from the root directory.
+     * @return Result.
+     */
+    public final boolean fragmented(String path) {
+        return !fragment || exists(fragmentOf(path));
+    }
+
+    /**
+     * Compute the path of the fragment of the specified page.
+     * 
+     * @param path A relative path of the page from the root directory.
+     * @return A relative path of the fragment.
+     */
+    private static String fragmentOf(String path) {
+        return "fragment/" + (path.endsWith(".html") ? path.substring(0, path.length() - 5) : path) + ".json";
+    }
+
+    /**
+     * Record the content hash of each output file, so that the service worker (see
+     * {@link #buildServiceWorker(String, String, Predicate)}) can precache the files by the hashes.
+     * 
+     * @return Chainable API.
+     */
+    public final SiteBuilder precache() {
+        this.precache = true;
+        return this;
+    }
+
+    /**
+     * Write the service worker which precaches the specified files. The worker script is prefixed
+     * with the precache manifest ({@code self.manifest}) which holds the content hash of each file
+     * and the version of the whole manifest, so the browser installs the new worker only when any
+     * precached file is changed, and the worker fetches only the changed files. The worker itself
+     * is never fingerprinted since its location is the scope. This must be called after all files
+     * are built.
+     * 
+     * @param path A relative path from the root directory.
+     * @param script The worker script.
+     * @param precached The condition of the path to precache.
+     * @return A path to the generated file.
+     */
+    public final String buildServiceWorker(String path, String script, Predicate<String> precached) {
+        Directory root = root();
+        DeployManifest previous = deployed == null ? new DeployManifest() : deployed;
+
+        StringBuilder files = new StringBuilder();
+        for (String file : new TreeSet<>(produced)) {
+            if (!file.endsWith(".gz") && precached.test(file)) {
+                // the unchanged file in the incremental build is not written by this build
+                deploying.inherit(file, previous, root.file(file).asJavaPath());
+
+                String hash = deploying.hash(file);
+                if (hash != null) {
+                    files.append(files.isEmpty() ? "" : ",").append('"').append(file).append("\":\"").append(hash, 0, 8).append('"');
+                }
+            }
+        }
+
+        String version = BuildManifest.hex(BuildManifest.digest().digest(files.toString().getBytes(StandardCharsets.UTF_8)));
+        String manifest = "self.manifest = {\"version\":\"" + version.substring(0, 8) + "\",\"files\":{" + files + "}};\n";
+        return write(path, minify(path, manifest + script));
+    }
+
+    /**
+     * Measure the weight (size, elements, code blocks and requests) of each built page from its
+     * XML tree and record it in the build metrics.
+     * 
+     * @return Chainable API.
+     */
+    public final SiteBuilder weigh() {
+        this.weights = new ConcurrentSkipListMap();
+        return this;
+    }
+
+    /**
+     * List the weight of each page built by this builder.
+     * 
+     * @return The weight of each page path.
+     */
+    public final Map<String, PageBudget.Weight> weights() {
+        return weights == null ? Map.of() : new TreeMap(weights);
+    }
+
+    /**
+     * Resolve the published name of the specified asset.
+     * 
+     * @param path A logical path of the asset (e.g. main.css).
+     * @return The published path, or the logical path itself if it is not fingerprinted.
+     */
+    public final String asset(String path) {
+        return assets.getOrDefault(path, path);
+    }
+
+    /**
+     * List the published names of all fingerprinted assets.
+     * 
+     * @return The published path of each logical path.
+     */
+    public final Map<String, String> assets() {
+        return new TreeMap(assets);
+    }
+
+    /**
+     * Mark the existing file as produced by this build without writing it.
+     * 
+     * @param path A relative path from the root directory.
+     */
+    public final void keep(String path) {
+        String relative = root().relativize(root().file(path)).path();
+        produced.add(relative);
+        if (0 <= compression) produced.add(relative + ".gz");
+        if (critical != null) critical.incomplete();
+        complete = false;
+
+        if (fragment && relative.endsWith(".html")) {
+            produced.add(fragmentOf(relative));
+            if (0 <= compression) produced.add(fragmentOf(relative) + ".gz");
+        }
+    }
+
+    /**
+     * Wait for all compressions and record their ratio in the build metrics.
+     * 
+     * @return The number of compressed files.
+     */
+    public final int finish() {
+        List<CompletableFuture<Compression>> list = List.copyOf(compressions);
+        compressions.clear();
+
+        for (CompletableFuture<Compression> future : list) {
+            Compression compressed = future.join();
+            BuildMetrics.reduced("gzip", compressed.path, compressed.raw, compressed.compressed);
+            BuildMetrics.count("gzip.files", 1);
+            BuildMetrics.count("gzip.bytes", compressed.compressed);
+        }
+        return list.size();
+    }
+
+    /**
+     * Delete the files which are not produced by this build in the synchronizing mode. The
+     * protected files (see {@link #guard(String...)}) are kept.
+     * 
+     * @return The number of deleted files.
+     */
+    public final int sweep() {
+        if (!sync) {
+            return 0;
+        }
+
+        int[] deleted = {0};
+        Directory root = root();
+        root.walkFile(protectable.toArray(String[]::new)).to(file -> {
+            if (!produced.contains(root.relativize(file).path())) {
+                file.delete();
+                deleted[0]++;
+            }
+        });
+        changes.add(deleted[0]);
+        return deleted[0];
+    }
+
+    /**
+     * Count the files which are written or deleted by this build. The unchanged files are not
+     * written in the synchronizing mode, so this can be zero.
+     * 
+     * @return The number of the changed files.
+     */
+    public final long changes() {
+        return changes.sum();
+    }
+
+    /**
+     * Keep all existing files in the root directory instead of deleting them before the first
+     * output. This is used by the incremental build which leaves the unchanged pages on disk.
+     * 
+     * @return Chainable API.
+     */
+    public final SiteBuilder preserve() {
+        this.clean = false;
+        return this;
+    }
+
+    /**
+     * Check whether the specified file exists in the root directory or not.
+     * 
+     * @param path A relative path from the root directory.
+     * @return Result.
+     */
+    public final boolean exists(String path) {
+        return root().file(path).isPresent();
+    }
+
+    /**
+     * Delete the specified file in the root directory.
+     * 
+     * @param path A relative path from the root directory.
+     */
+    public final void delete(String path) {
+        root().file(path).delete();
+        if (fragment && path.endsWith(".html")) root().file(fragmentOf(path)).delete();
     }
 
     /**
@@ -73,6 +686,15 @@ public class SiteBuilder {
         return this;
     }
 
+    /** The name pattern of the archive files. */
+    private static final Pattern ARCHIVE = Pattern.compile(".+\\.(zip|jar)", Pattern.CASE_INSENSITIVE);
+
+    /** The pair of the logical and published names in the asset manifest. */
+    private static final Pattern ASSET = Pattern.compile("\"([^\"]+)\": \"([^\"]+)\"");
+
+    /** The name pattern of the compressible files. */
+    private static final Pattern COMPRESSIBLE = Pattern.compile(".+\\.(html|css|js|json|svg)");
+
     private static final String[] characterType = {"figcaption", "figure", "a", "abbr", "b", "bdi", "bdo", "cite", "code", "data", "dfn",
             "em", "i", "img", "kbd", "mark", "q", "rb", "rp", "rt", "rtc", "s", "samp", "span", "strong", "sub", "sup", "time", "u", "var",
             "del", "ins", "&script", "&nav", "&article", "&aside", "&dl", "&div", "&i", "&td"};
@@ -88,15 +710,86 @@ public class SiteBuilder {
      * Build HTML file.
      */
     public final void buildHTML(String path, HTML html) {
-        html.declare();
+        PageRender event = new PageRender();
+        event.begin();
 
-        root.file(path).write(output -> {
-            output.append("<!DOCTYPE html>\r\n");
+        html.assets(this::asset);
+        html.inline(critical != null);
+        html.fonts(fonts);
+        BuildMetrics.measure("site.render." + html.getClass().getSimpleName(), html::declare);
 
+        StringBuilder output = new StringBuilder("<!DOCTYPE html>\r\n");
+        if (minify) {
+            Minify.html(html.root, output, characterType);
+        } else {
             for (XML node : html.root) {
                 node.to(output, "\t", characterType);
             }
-        });
+        }
+
+        if (critical != null) {
+            int head = output.indexOf("</head>");
+            if (head != -1) output.insert(head, "<style>" + BuildMetrics.measure("site.critical", () -> critical.inline(html.root)) + "</style>");
+        }
+        byte[] bytes = output.toString().getBytes(StandardCharsets.UTF_8);
+        write(path, bytes);
+        BuildMetrics.count("pages", 1);
+
+        if (fonts != null) {
+            BitSet used = new BitSet();
+            for (XML node : html.root) {
+                glyphs(node.to(), used);
+            }
+            synchronized (glyphs) {
+                glyphs.or(used);
+            }
+        }
+
+        if (fragment) {
+            for (XML node : html.root) {
+                XML article = node.find("article");
+                XML aside = node.find("aside");
+                if (article.size() != 0 && aside.size() != 0) {
+                    String prefetch = article.attr("data-prefetch");
+                    String json = "{\"title\":" + BuildManifest.quote(node.find("title").text()) + ",\"article\":" + BuildManifest
+                            .quote(inner(article)) + ",\"aside\":" + BuildManifest.quote(inner(aside)) + ",\"prefetch\":" + BuildManifest
+                                    .quote(prefetch == null ? "" : prefetch) + "}";
+                    write(fragmentOf(path), json.getBytes(StandardCharsets.UTF_8));
+                    BuildMetrics.count("fragments", 1);
+                }
+            }
+        }
+
+        if (weights != null) {
+            PageBudget.Weight weight = PageBudget.Weight.of(html.root, bytes.length);
+            weights.put(path, weight);
+            BuildMetrics.weighed(path, weight);
+        }
+
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.type = html.getClass().getSimpleName();
+            event.bytes = bytes.length;
+            event.commit();
+        }
+    }
+
+    /**
+     * Write the child nodes of the specified element.
+     * 
+     * @param xml An element.
+     * @return The written child nodes.
+     */
+    private String inner(XML xml) {
+        StringBuilder output = new StringBuilder();
+        if (minify) {
+            Minify.html(xml.children(), output, characterType);
+        } else {
+            for (XML child : xml.children()) {
+                child.to(output, "\t", characterType);
+            }
+        }
+        return output.toString();
     }
 
     /**
@@ -107,9 +800,7 @@ public class SiteBuilder {
     public final String buildCSS(String path) {
         String formatted = Stylist.pretty().importNormalizeStyle().format();
 
-        File file = root.file(path);
-        file.write(output -> output.append(formatted));
-        return root.relativize(file).path();
+        return build(path, formatted);
     }
 
     /**
@@ -121,9 +812,7 @@ public class SiteBuilder {
     public final String buildCSS(String path, Class<? extends StyleDSL> styles) {
         String formatted = Stylist.pretty().importNormalizeStyle().styles(styles).format();
 
-        File file = root.file(path);
-        file.write(output -> output.append(formatted));
-        return root.relativize(file).path();
+        return build(path, formatted);
     }
 
     /**
@@ -135,9 +824,16 @@ public class SiteBuilder {
     public final String buildCSS(String path, StyleDeclarable styles) {
         String formatted = Stylist.pretty().importNormalizeStyle().styles(styles).format();
 
-        File file = root.file(path);
-        file.write(output -> output.append(formatted));
-        return root.relativize(file).path();
+        return build(path, formatted);
+    }
+
+    /**
+     * Build text file and return the path of the generated file.
+     * 
+     * @return A path to the generated file.
+     */
+    public final String build(String path, String text) {
+        return publish(path, minify(path, text));
     }
 
     /**
@@ -146,10 +842,10 @@ public class SiteBuilder {
      * @return A path to the generated file.
      */
     public final String build(String path, InputStream input) {
-        File file = root.file(path);
-        file.writeFrom(input);
-
-        return root.relativize(file).path();
+        if (minifiable(path)) {
+            return build(path, new String(read(input), StandardCharsets.UTF_8));
+        }
+        return publish(path, read(input));
     }
 
     /**
@@ -158,24 +854,218 @@ public class SiteBuilder {
      * @return A path to the generated file.
      */
     public final String build(String path, InputStream input, List<String> additions) {
-        File file = root.file(path);
-        file.writeFrom(input);
+        StringBuilder text = new StringBuilder(new String(read(input), StandardCharsets.UTF_8));
         for (String add : additions) {
-            file.textAtTail(add);
+            text.append('\n').append(add);
         }
-        return root.relativize(file).path();
+        return build(path, text.toString());
     }
 
     /**
      * Build JSON file with padding.
      */
     public final String buildJSONP(String path, Object object) {
-        File file = root.file(path);
-        file.write(output -> {
-            output.append("const " + file.base() + " = ");
-            I.write(object, output);
-        });
-        return root.relativize(file).path();
+        StringBuilder output = new StringBuilder("const " + root().file(path).base() + " = ");
+        I.write(object, output);
+        return build(path, output.toString());
+    }
+
+    /**
+     * Build the manifest of the fingerprinted assets. It lists the published name of each asset
+     * and the files which never change their content, so that the hosting can serve them with
+     * {@code Cache-Control: immutable}. The manifest itself is not fingerprinted.
+     * <p>
+     * The assets which are listed in the previous manifest under the other names are deleted, so
+     * that the previous output kept by {@link #preserve()} doesn't accumulate the stale assets.
+     * 
+     * @param path A relative path from the root directory.
+     * @return A path to the generated file.
+     */
+    public final String buildAssetManifest(String path) {
+        Path previous = root().file(path).asJavaPath();
+        if (Files.isRegularFile(previous)) {
+            try {
+                Matcher matcher = ASSET.matcher(Files.readString(previous));
+                while (matcher.find()) {
+                    String stale = matcher.group(2);
+                    if (!stale.equals(matcher.group(1)) && !produced.contains(stale)) {
+                        root().file(stale).delete();
+                        root().file(stale + ".gz").delete();
+                    }
+                }
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
+
+        StringBuilder output = new StringBuilder("{\n  \"assets\": {");
+        String separator = "\n";
+        for (Map.Entry<String, String> asset : assets().entrySet()) {
+            output.append(separator).append("    \"").append(asset.getKey()).append("\": \"").append(asset.getValue()).append("\"");
+            separator = ",\n";
+        }
+        output.append("\n  },\n  \"immutable\": [");
+        separator = "\n";
+        for (String published : assets().values()) {
+            output.append(separator).append("    \"").append(published).append("\"");
+            if (0 <= compression && produced.contains(published + ".gz")) {
+                output.append(",\n    \"").append(published).append(".gz\"");
+            }
+            separator = ",\n";
+        }
+        output.append("\n  ]\n}\n");
+        return write(path, output.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Check whether the specified file is minified or not.
+     * 
+     * @param path A relative path from the root directory.
+     * @return Result.
+     */
+    private boolean minifiable(String path) {
+        return minify && (path.endsWith(".css") || scripts.contains(path));
+    }
+
+    /**
+     * Minify the text of the specified file if it is minifiable, and record the size saving in the
+     * build metrics.
+     * 
+     * @param path A relative path from the root directory.
+     * @param text The text to minify.
+     * @return The encoded text.
+     */
+    private byte[] minify(String path, String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (minifiable(path)) {
+            String minified = path.endsWith(".css") ? Minify.css(text) : Minify.minify(text);
+            if (!minified.equals(text)) {
+                byte[] bytes = minified.getBytes(StandardCharsets.UTF_8);
+                BuildMetrics.reduced("minify", path, raw.length, bytes.length);
+                BuildMetrics.count("minify.saved", raw.length - bytes.length);
+                return bytes;
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * Read all bytes from the specified input.
+     * 
+     * @param input An input to read.
+     * @return The read bytes.
+     */
+    private static byte[] read(InputStream input) {
+        try (input) {
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Write the asset under its published name.
+     * 
+     * @param path A logical path from the root directory.
+     * @param bytes The content to write.
+     * @return A path to the written file.
+     */
+    private String publish(String path, byte[] bytes) {
+        if (fingerprint) {
+            String hash = BuildManifest.hex(BuildManifest.digest().digest(bytes)).substring(0, 8);
+            int dot = path.lastIndexOf('.');
+            String published = dot <= path.lastIndexOf('/') ? path + "." + hash : path.substring(0, dot) + "." + hash + path.substring(dot);
+            assets.put(path, published);
+            path = published;
+        }
+        return write(path, bytes);
+    }
+
+    /**
+     * Write the file unless the same content already exists in the synchronizing mode, and record
+     * it in the build metrics.
+     * 
+     * @param path A relative path from the root directory.
+     * @param bytes The content to write.
+     * @return A path to the written file.
+     */
+    private String write(String path, byte[] bytes) {
+        File file = root().file(path);
+        String relative = root().relativize(file).path();
+        produced.add(relative);
+
+        boolean unchanged = sync && same(file.asJavaPath(), bytes);
+        if (unchanged) {
+            BuildMetrics.count("files.unchanged", 1);
+        } else {
+            BuildMetrics.measure("site.write", () -> {
+                try {
+                    Path output = file.asJavaPath();
+                    Files.createDirectories(output.getParent());
+                    Files.write(output, bytes);
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+            });
+            BuildMetrics.count("files", 1);
+            BuildMetrics.count("bytes", bytes.length);
+            changes.increment();
+        }
+        if (deployment != null || precache) deploying.record(relative, bytes);
+
+        if (0 <= compression && compression <= bytes.length && COMPRESSIBLE.matcher(relative).matches()) {
+            Path compressed = file.asJavaPath().resolveSibling(file.name() + ".gz");
+            produced.add(relative + ".gz");
+
+            if (!unchanged || !Files.isRegularFile(compressed)) {
+                compressions.add(CompletableFuture
+                        .supplyAsync(BuildMetrics.bind(() -> BuildMetrics.measure("site.gzip", () -> compress(relative, bytes, compressed)))));
+            }
+        }
+        return relative;
+    }
+
+    /**
+     * Write the gzip compressed content at the maximum level.
+     * 
+     * @param path A relative path from the root directory.
+     * @param bytes The content to compress.
+     * @param output The compressed file.
+     * @return The compression result.
+     */
+    private Compression compress(String path, byte[] bytes, Path output) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 3);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(bytes);
+            }
+            byte[] compressed = buffer.toByteArray();
+            Files.write(output, compressed);
+            if (deployment != null) deploying.record(path + ".gz", compressed);
+
+            return new Compression(path, bytes.length, buffer.size());
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Test whether the specified file has exactly the same content.
+     * 
+     * @param file A file to test.
+     * @param bytes The expected content.
+     * @return Result.
+     */
+    private static boolean same(Path file, byte[] bytes) {
+        try {
+            return Files.isRegularFile(file) && Files.size(file) == bytes.length && Arrays.equals(Files.readAllBytes(file), bytes);
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
@@ -185,16 +1075,21 @@ public class SiteBuilder {
      * @return
      */
     public static SiteBuilder root(String pathToRootDirectory) {
-        return root(Locator.directory(pathToRootDirectory));
+        return root(Path.of(pathToRootDirectory));
     }
 
     /**
-     * Configure root directory.
+     * Configure root directory. The path which ends with ".zip" or ".jar" is treated as the
+     * archive (see {@link #archive(Path)}).
      * 
      * @param pathToRootDirectory
      * @return
      */
     public static SiteBuilder root(Path pathToRootDirectory) {
+        Path name = pathToRootDirectory.getFileName();
+        if (name != null && ARCHIVE.matcher(name.toString()).matches()) {
+            return archive(pathToRootDirectory);
+        }
         return root(Locator.directory(pathToRootDirectory));
     }
 
@@ -205,6 +1100,28 @@ public class SiteBuilder {
      * @return
      */
     public static SiteBuilder root(Directory rootDirectory) {
-        return new SiteBuilder(rootDirectory);
+        return new SiteBuilder(Objects.requireNonNull(rootDirectory), null);
+    }
+
+    /**
+     * Configure the archive to write into. All files are written as the entries of the zip
+     * archive without any intermediate file on disk, and the archive is completed by
+     * {@link #close()}.
+     * 
+     * @param archive A path to the zip or jar file.
+     * @return
+     */
+    public static SiteBuilder archive(Path archive) {
+        return new SiteBuilder(null, Objects.requireNonNull(archive).toAbsolutePath());
+    }
+
+    /**
+     * The result of compression.
+     * 
+     * @param path A relative path of the original file.
+     * @param raw The original size.
+     * @param compressed The compressed size.
+     */
+    private record Compression(String path, long raw, long compressed) {
     }
-}
\ No newline at end of file
+}
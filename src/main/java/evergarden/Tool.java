@@ -39,7 +39,10 @@ import kiss.I;
  */
 public final class Tool {
 
-    /** Holds the current {@link DocletEnvironment} per thread. */
+    /**
+     * Holds the current {@link DocletEnvironment} per thread. It is available only while scanning
+     * and removed after that to release the compiler.
+     */
     static final InheritableThreadLocal<DocletEnvironment> ENVIRONMENT = new InheritableThreadLocal<>();
 
     /** Holds the current {@link VioletEvergarden} per thread. */
@@ -95,6 +98,17 @@ public final class Tool {
         return DOLL.get();
     }
 
+    /**
+     * Test whether the current build must not access the network. It is enabled by
+     * {@link VioletEvergarden#useOffline()} or the system property {@code evergarden.offline}.
+     *
+     * @return Result.
+     */
+    public static boolean isOffline() {
+        VioletEvergarden doll = DOLL.get();
+        return doll == null ? Boolean.getBoolean(VioletEvergarden.OFFLINE) : doll.offline;
+    }
+
     /**
      * Finds the top-level {@link TypeElement} that encloses the given element.
      * Skips nested classes and returns the outermost class or interface.
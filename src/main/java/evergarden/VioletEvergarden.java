@@ -9,6 +9,7 @@
  */
 package evergarden;
 
+import static java.nio.file.StandardWatchEventKinds.*;
 import static javax.tools.Diagnostic.Kind.*;
 import static javax.tools.Diagnostic.Kind.OTHER;
 import static javax.tools.DocumentationTool.Location.*;
@@ -17,27 +18,42 @@ import static javax.tools.StandardLocation.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
+import java.lang.module.ModuleDescriptor.Exports;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
-import javax.lang.model.element.ModuleElement;
-import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
@@ -48,6 +64,7 @@ import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 
+import evergarden.BuildEvents.ClassScan;
 import evergarden.design.EvergardenDesignScheme;
 import evergarden.host.Hosting;
 import evergarden.javadoc.ClassInfo;
@@ -55,16 +72,15 @@ import evergarden.javadoc.MethodInfo;
 import evergarden.javadoc.SourceCode;
 import evergarden.javadoc.TypeResolver;
 import evergarden.page.APIMainPage;
-import evergarden.page.APIPage;
 import evergarden.page.ActivityPage;
 import evergarden.page.DocumentOnePage;
-import evergarden.page.DocumentPage;
 import evergarden.page.LandingPage;
 import evergarden.web.CodeHighlight;
 import icy.manipulator.Icy;
 import jdk.javadoc.doclet.Doclet;
 import jdk.javadoc.doclet.DocletEnvironment;
 import jdk.javadoc.doclet.Reporter;
+import kiss.Disposable;
 import kiss.I;
 import kiss.Variable;
 import kiss.XML;
@@ -73,6 +89,7 @@ import psychopath.Location;
 import psychopath.Locator;
 import stylist.StyleDeclarable;
 import stylist.Stylist;
+import stylist.value.Font;
 
 /**
  * Abstract base class for configuring and executing the Evergarden Javadoc generation process.
@@ -87,6 +104,21 @@ import stylist.Stylist;
 @Icy(modelNamePattern = "(.+)Evergarden")
 public abstract class VioletEvergarden {
 
+    /** The system property to build without any network access. */
+    static final String OFFLINE = "evergarden.offline";
+
+    /** The marker file which is touched at last when the build changes the output. */
+    static final String LIVE = ".evergarden.live";
+
+    /** The location of the JDK API documents. */
+    private static final String JDK = "https://docs.oracle.com/en/java/javase/24/docs/api/";
+
+    /** The path pattern of the API and document pages and their fragments. */
+    private static final Pattern PAGES = Pattern.compile("(api|doc)/.+\\.html|fragment/.+\\.json");
+
+    /** The path of the characters used in the pages. */
+    private static final String GLYPHS = "fonts/glyphs.txt";
+
     /** Stores analyzed class information primarily from document/manual sources. */
     private final List<ClassInfo> docs = new ArrayList();
 
@@ -96,9 +128,103 @@ public abstract class VioletEvergarden {
      */
     private final Map<String, String> externals = new HashMap<>();
 
+    /** The external documents which are not resolved yet, with their local package list or null. */
+    private final Map<String, Path> pendings = new LinkedHashMap();
+
     /** Stores package names identified as belonging to the project being documented (internal). */
     private final Set<String> internals = new HashSet<>();
 
+    /** The source files of API. */
+    private final Set<URI> apis = new HashSet();
+
+    /** The source files of documents and samples. */
+    private final Set<URI> manuals = new HashSet();
+
+    /** The documentation tool which is kept resident across the builds. */
+    private DocumentationTool tool;
+
+    /**
+     * The file manager which is kept resident in watch mode, null otherwise. It is read and written
+     * only while holding the lock of this instance, which {@link #write()} also holds.
+     */
+    private StandardJavaFileManager manager;
+
+    /** The number of threads to render pages. */
+    private int renderers = Runtime.getRuntime().availableProcessors();
+
+    /** The flag whether to write the build report. */
+    private boolean report;
+
+    /** The flag whether to render the pages while the sources are still being scanned. */
+    private boolean pipelined;
+
+    /** The flag whether to build without any network access. */
+    boolean offline = Boolean.getBoolean(OFFLINE);
+
+    /** The local directory of the highlighting grammars, null to download them. */
+    private Path grammars;
+
+    /** The flag whether to write only the changed files. */
+    private boolean sync;
+
+    /** The minimum size of the file to write its compressed sibling, or -1 not to compress. */
+    private int compression = -1;
+
+    /** The flag whether to minify the generated HTML, CSS and JS. */
+    private boolean minify;
+
+    /** The flag whether to add the content hash to the asset names. */
+    private boolean fingerprint;
+
+    /** The archive file to write the site into, or null to write into the output directory. */
+    private Path archive;
+
+    /** The flag whether to write the fragment of each page for the in-site navigation. */
+    private boolean fragments;
+
+    /** The weight budget of each page, or null not to check. */
+    private PageBudget budget;
+
+    /** The flag whether to write the delta of the output since the previous build. */
+    private boolean delta;
+
+    /** The flag whether to write the service worker. */
+    private boolean serviceWorker;
+
+    /** The flag whether the service worker precaches all pages. */
+    private boolean precachePages;
+
+    /** The flag whether to inline the critical styles in each page. */
+    private boolean critical;
+
+    /** The local directory of the self-hosted font files, or null to use Google Fonts. */
+    private Path fonts;
+
+    /** The command to subset the self-hosted fonts, or null to serve them as they are. */
+    private List<String> subsetter;
+
+    /** The self-hosted fonts of the current build. */
+    private LocalFonts faces;
+
+    /** The global stylesheet of the current build. */
+    private String stylesheet;
+
+    /** The flag whether to restore the scanned model from the previous build. */
+    private boolean cache;
+
+    /** The page renderer of the running build. */
+    private PageRenderer renderer;
+
+    /** The flag whether to re-render only the pages whose inputs have changed. */
+    private boolean incremental;
+
+    /**
+     * The latest modified date of the sources and documents in the current build. The rendering
+     * threads read it while {@link #write()} holds the lock of this instance, so it is computed
+     * without locking (the walk is idempotent).
+     */
+    private volatile LocalDate modified;
+
     /**
      * The central data model representing the documentation website being built.
      * It aggregates information from {@link VioletEvergarden} settings and the results
@@ -136,6 +262,15 @@ public abstract class VioletEvergarden {
         public Variable<Hosting> authority() {
             return VioletEvergarden.this.host();
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public LocalDate date() {
+            Variable<LocalDate> published = authority().map(Hosting::getLatestPublishedDate);
+            return published.isPresent() ? published.v : modified();
+        }
     };
 
     /**
@@ -315,13 +450,17 @@ public abstract class VioletEvergarden {
      * @return This {@link VioletEvergarden} instance for chaining.
      */
     public final VioletEvergarden useExternalJDKDoc() {
-        return useExternalDoc("https://docs.oracle.com/en/java/javase/24/docs/api/");
+        return useExternalDoc(JDK);
     }
 
     /**
      * Configures external Javadoc URLs to resolve types not found in the current project sources.
      * For each valid URL (must start with http and end with "/api/"), it attempts to fetch
      * the "overview-tree.html" to extract package names and associate them with the URL.
+     * <p>
+     * The documents are resolved when the build starts. In the offline build, the JDK packages are
+     * listed from the running JDK and the other documents are ignored unless their package list
+     * is given by {@link #useExternalDoc(String, Path)}.
      *
      * @param urls A list of base URLs for external Javadoc APIs (e.g.,
      *            "https://some.library/version/api/").
@@ -331,6 +470,86 @@ public abstract class VioletEvergarden {
         if (urls != null) {
             for (String url : urls) {
                 if (url != null && url.startsWith("http") && url.endsWith("/api/")) {
+                    pendings.putIfAbsent(url, null);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Configures the external Javadoc URL whose package names are read from the local package
+     * list instead of the network. The list is the {@code element-list} or {@code package-list}
+     * file which the javadoc tool generates.
+     *
+     * @param url A base URL for external Javadoc API (e.g., "https://some.library/version/api/").
+     * @param packages A local package list of the external Javadoc API.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useExternalDoc(String url, Path packages) {
+        if (url != null && url.startsWith("http") && url.endsWith("/api/")) {
+            pendings.put(url, packages);
+        }
+        return this;
+    }
+
+    /**
+     * Configures the build to never access the network, so it doesn't block on the unreachable
+     * hosts and its time is stable. Each network resource is replaced by its local equivalent:
+     * <ul>
+     * <li>The JDK packages are listed from the running JDK and the other external documents are
+     * read from the package lists given by {@link #useExternalDoc(String, Path)}.</li>
+     * <li>The highlighting grammars are read from {@link #useHighlightGrammars(Path)}, and the
+     * languages without local grammar are left unhighlighted.</li>
+     * <li>The repository information is read from the local cache of the previous online build,
+     * and the default branch from the local git repository.</li>
+     * <li>The change log is read from {@code CHANGELOG.md} in the working directory.</li>
+     * </ul>
+     * The offline build is also enabled by the system property {@code -Devergarden.offline=true}.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useOffline() {
+        this.offline = true;
+        return this;
+    }
+
+    /**
+     * Configures the local directory of the highlight.js grammars (e.g. {@code java.min.js}) which
+     * is used instead of downloading them.
+     *
+     * @param directory A directory of the grammar files.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useHighlightGrammars(Path directory) {
+        this.grammars = directory;
+        return this;
+    }
+
+    /**
+     * Resolve the package names of all configured external documents.
+     */
+    private void resolveExternals() {
+        pendings.forEach((url, packages) -> {
+            if (packages != null) {
+                try {
+                    for (String line : Files.readAllLines(packages)) {
+                        line = line.strip();
+                        if (!line.isEmpty() && !line.startsWith("module:")) externals.put(line, url);
+                    }
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+            } else if (url.equals(JDK) && offline) {
+                for (ModuleReference module : ModuleFinder.ofSystem().findAll()) {
+                    for (Exports exports : module.descriptor().exports()) {
+                        if (!exports.isQualified()) externals.put(exports.source(), url);
+                    }
+                }
+            } else if (offline) {
+                log(WARNING, "violet.offline", "Skip the external document without local package list: " + url);
+            } else {
+                BuildMetrics.measure("network.externals", () -> {
                     I.http(url + "overview-tree.html", XML.class)
                             .retry(e -> e.delay(Duration.ofMillis(200)).take(20))
                             .flatIterable(xml -> xml.find(".horizontal a"))
@@ -338,9 +557,36 @@ public abstract class VioletEvergarden {
                             .to(xml -> {
                                 externals.put(xml.text(), url);
                             });
-                }
+                });
             }
-        }
+        });
+        pendings.clear();
+    }
+
+    /**
+     * Configures the build to keep the previous output and re-render only the pages whose inputs
+     * have changed. The content hash of every source file and the inputs of each page are recorded
+     * in a manifest file in the output directory, so a page is rendered again only when its own
+     * source, the sources of the types it links to or the site-wide settings have changed.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useIncrementalBuild() {
+        this.incremental = true;
+        return this;
+    }
+
+    /**
+     * Configures the number of threads to render the HTML pages concurrently. Each page is written
+     * into its own file, so the output is identical regardless of the number of threads. The
+     * default value is the number of available processors, and 1 renders all pages on the calling
+     * thread one at a time.
+     *
+     * @param threads The number of rendering threads.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useRenderingThreads(int threads) {
+        this.renderers = Math.max(1, threads);
         return this;
     }
 
@@ -352,106 +598,526 @@ public abstract class VioletEvergarden {
      * @throws Error if scanning API or document sources fails critically.
      * @throws RuntimeException wrapping underlying IOExceptions or other errors during the process.
      */
-    public final Letter write() {
+    public final synchronized Letter write() {
         Tool.DOLL.set(this);
 
-        // Find all package names in the source directory.
-        I.signal(sources()).flatMap(Directory::walkDirectoryWithBase).to(sub -> {
-            internals.add(sub.ⅰ.relativize(sub.ⅱ).toString().replace(File.separatorChar, '.'));
-        });
+        BuildMetrics metrics = new BuildMetrics();
+        BuildMetrics.CURRENT.set(metrics);
+        try {
+            modified = null;
+            resolveExternals();
 
-        CompletableFuture.allOf(scanDocument(), scanAPI()).join();
+            // Find all package names in the source directory.
+            I.signal(sources()).flatMap(Directory::walkDirectoryWithBase).to(sub -> {
+                internals.add(sub.ⅰ.relativize(sub.ⅱ).toString().replace(File.separatorChar, '.'));
+            });
+
+            SiteBuilder site = (archive == null ? SiteBuilder.root(address()) : SiteBuilder.archive(archive)).guard("index.html", "main.css", "mocha.html", "mimic.test.js");
+            if (sync) site.sync();
+            if (0 <= compression) site.compress(compression);
+            if (minify) site.minify("main.js", "search.js", "sw.js", "root.js");
+            if (fingerprint) site.fingerprint();
+            if (report || budget != null) site.weigh();
+            if (delta) site.deploy(address().asJavaPath().resolve(".evergarden.deploy"));
+            if (serviceWorker) site.precache();
+            if (fragments) site.fragment();
+            stylesheet = BuildMetrics.measure("site.css", () -> styles(site));
+            if (critical) site.inline(stylesheet);
+            renderer = new PageRenderer(letter, site, incremental, renderers, sources(), documents());
+
+            if (cache || manager != null) {
+                String key = BuildMetrics.measure("cache.key", () -> ModelCache.key(sources(), documents(), classpath(), externals, encoding()));
+                if (BuildMetrics.measure("cache", () -> ModelCache.load(address(), key, letter, docs))) {
+                    log("Restored the scanned model of the previous build.");
+                    renderer.global(settings());
+                } else {
+                    BuildMetrics.measure("scan", this::scan);
+                    BuildMetrics.measure("cache", () -> ModelCache.store(address(), key, letter, docs));
+                }
+            } else {
+                BuildMetrics.measure("scan", this::scan);
+            }
 
-        // ========================================================
-        // Write resources for the letter (web site)
-        // ========================================================
-        buildSite(letter);
+            // ========================================================
+            // Write resources for the letter (web site)
+            // ========================================================
+            BuildMetrics.measure("site", () -> buildSite(letter));
+        } finally {
+            if (renderer != null) {
+                renderer.close();
+                BuildMetrics.measure("site.close", renderer.site::close);
+            }
+            renderer = null;
+            BuildMetrics.CURRENT.remove();
+        }
 
+        log(metrics.summary());
+        if (report) {
+            Path output = address().asJavaPath().toAbsolutePath();
+            try {
+                Files.writeString(output.resolveSibling(output.getFileName() + ".report.json"), metrics.toJSON());
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
         return letter;
     }
 
     /**
-     * Scans the specified document directories for manual (`*Manual.java`) and test (`*Test.java`)
-     * files using a dedicated Doclet ({@link DocumentDoclet}).
+     * Configures the build to keep the previous output and write only the files whose content has
+     * changed, so the unchanged files keep their modification time and the deployment tools can
+     * detect the actual changes. The files which are no longer produced are deleted.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useWriteIfChanged() {
+        this.sync = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to write the fragment of each page ({@code fragment/<path>.json}) which
+     * holds only the title, the article and the aside, so that the in-site navigation fetches the
+     * fragment instead of the whole page. Without this, the navigation reads the whole page.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useFragments() {
+        this.fragments = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to write the gzip compressed sibling ({@code *.gz}) of each HTML, CSS,
+     * JS and SVG file of 1KB or more, so that the static hosts (e.g. nginx {@code gzip_static}) can
+     * serve it without compressing at runtime.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useCompression() {
+        return useCompression(1024);
+    }
+
+    /**
+     * Configures the build to write the gzip compressed sibling ({@code *.gz}) of each HTML, CSS,
+     * JS and SVG file whose size is the specified threshold or more. The files are compressed at
+     * the maximum level in parallel, and the compression ratio of each file is recorded in the
+     * build report (see {@link #useBuildReport()}).
+     *
+     * @param threshold The minimum size of the file to compress in bytes.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useCompression(int threshold) {
+        this.compression = Math.max(0, threshold);
+        return this;
+    }
+
+    /**
+     * Configures the build to minify the generated files for production. HTML is written without
+     * the whitespace between the block elements, CSS and the own scripts ({@code main.js},
+     * {@code search.js}, {@code sw.js} and {@code root.js}) are written without comments and
+     * redundant whitespaces. The bundled libraries ({@code mimic.js}, {@code highlight.js} and its
+     * grammars) are written as they are. The size savings are recorded in the build report (see
+     * {@link #useBuildReport()}).
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useMinification() {
+        this.minify = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to add the content hash to the names of the assets ({@code main.css},
+     * {@code main.js}, {@code mimic.js}, {@code highlight.js}, {@code main.svg} and
+     * {@code root.js}), e.g. {@code main.3f9a1c2b.css}, and to write {@code assets.json} which
+     * lists the published names. The hosting can serve the listed files with
+     * {@code Cache-Control: immutable}, since any change of the content changes the name. The
+     * assets under the previous names are deleted even if the previous output is kept (e.g.
+     * {@link #useIncrementalBuild()}).
+     * <p>
+     * The pages are rendered after all assets are built, so this disables the early rendering of
+     * {@link #usePipelinedBuild()}.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useFingerprint() {
+        this.fingerprint = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to write the site straight into the zip archive (e.g.
+     * {@code site.zip}) instead of the output directory, so no intermediate file is written to
+     * disk. The build state (see {@link #useIncrementalBuild()} and {@link #useModelCache()}) is
+     * still kept in the output directory.
      *
-     * @return A {@link CompletableFuture} representing the asynchronous scanning task.
+     * @param archive A path to the zip or jar file.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useArchive(Path archive) {
+        this.archive = archive;
+        return this;
+    }
+
+    /**
+     * Configures the build to check the weight of each generated page (size, elements, code
+     * blocks and requested resources) against the specified budget. The page which exceeds it is
+     * reported as a warning, or fails the build if the budget is strict. The weight of each page is
+     * also recorded in the build report (see {@link #useBuildReport()}).
+     * <p>
+     * In the incremental build, only the pages which are rendered again are checked.
+     *
+     * @param budget The page budget.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden usePageBudget(PageBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Configures the build to compare the output with the previous build and to write the added,
+     * modified and deleted paths in JSON next to the output directory as
+     * {@code <address>.delta.json}, so that the deployment can upload and invalidate only the
+     * changed files. The size and content hash of each file are stored in the output directory for
+     * the next build; on the first build, the previous output on disk is read instead.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useDeltaManifest() {
+        this.delta = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to write the service worker ({@code sw.js}) which serves the site from
+     * the browser cache, so that the repeated visits and the navigation work instantly and offline.
+     * The shell assets ({@code main.css}, {@code main.js}, {@code mimic.js}, {@code highlight.js},
+     * {@code main.svg} and {@code root.js}) are precached by their content hashes, and the new
+     * build fetches only the changed ones. The other visited pages are served from a separate
+     * runtime cache, which keeps the recent 64 entries, and updated in the background
+     * (stale-while-revalidate). The page fragments and the search index are always fetched from
+     * the network.
+     * <p>
+     * The service worker is not registered on {@code localhost} so that the live reload always
+     * shows the latest build.
+     *
+     * @param pages Precache all API and document pages too.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useServiceWorker(boolean pages) {
+        this.serviceWorker = true;
+        this.precachePages = pages;
+        return this;
+    }
+
+    /**
+     * Configures the build to inline the critical styles in each page, that is the rules of
+     * {@code main.css} which match the class names used in the page, and to load {@code main.css}
+     * without blocking the first paint. The normalize styles are bundled in {@code main.css}
+     * instead of loading them from the CDN, and {@code main.css} is written after all pages
+     * without the rules which no page uses.
+     * <p>
+     * Since {@code main.css} is written after the pages which refer to it, it is not fingerprinted
+     * (see {@link #useFingerprint()}). In the incremental build, the rules are pruned only when all
+     * pages are rendered again.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
      */
-    private CompletableFuture scanDocument() {
-        List<Directory> directories = documents();
-        if (directories == null || directories.isEmpty()) {
-            log("No document/sample directories specified, skipping document scan.");
-            return CompletableFuture.completedFuture(null);
+    public final VioletEvergarden useCriticalCSS() {
+        this.critical = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to serve the web fonts of the design scheme from the site itself
+     * instead of Google Fonts, so that the pages make no request to the font hosts and work on the
+     * intranet mirror. The font files of each family (woff2, woff, ttf or otf, named after the
+     * family like {@code Inter-Bold.woff2}) are copied from the specified directory to
+     * {@code fonts/} with the {@code @font-face} rules in {@code main.css}, and the regular face of
+     * the base font is preloaded by each page.
+     * <p>
+     * All characters used in the pages are written in {@code fonts/glyphs.txt}, and the font files
+     * are subsetted to them if the font subsetter is configured (see {@link #useFontSubsetter()}).
+     * Otherwise the font files are served as they are, so the family without any woff2 file is
+     * reported as a warning.
+     *
+     * @param directory A local directory of the font files.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useLocalFonts(Path directory) {
+        this.fonts = directory;
+        return this;
+    }
+
+    /**
+     * Configures the build to subset the self-hosted fonts (see {@link #useLocalFonts(Path)}) to
+     * the characters used in the pages by {@code pyftsubset} of
+     * <a href="https://github.com/fonttools/fonttools">fonttools</a> (with the brotli module), and
+     * to write them as woff2.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useFontSubsetter() {
+        return useFontSubsetter("pyftsubset", "{font}", "--text-file={text}", "--layout-features=*", "--flavor=woff2", "--output-file={output}");
+    }
+
+    /**
+     * Configures the build to subset the self-hosted fonts (see {@link #useLocalFonts(Path)}) to
+     * the characters used in the pages by the specified command, which must write the woff2 font.
+     * The placeholders {@code {font}}, {@code {text}} and {@code {output}} in the arguments are
+     * replaced with the source font file, the UTF-8 text file of the used characters and the output
+     * file.
+     * <p>
+     * The fonts are subsetted after all pages are built, so they are not fingerprinted (see
+     * {@link #useFingerprint()}).
+     *
+     * @param command The command and its arguments.
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useFontSubsetter(String... command) {
+        this.subsetter = List.of(command);
+        return this;
+    }
+
+    /**
+     * Configures the build to store the scanned model (types, members with their rendered
+     * comments, samples and the document tree) in the output directory and to restore it instead
+     * of running the documentation tool when the sources, documents, classpath, external documents,
+     * encoding and Evergarden version are all unchanged. The pages are still rendered from the
+     * restored model as usual.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useModelCache() {
+        this.cache = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to render and write each API page as soon as its model is complete,
+     * while the remaining sources are still being scanned. This overlaps the analysis with the
+     * rendering and the disk output.
+     * <p>
+     * Only the pages of the types which cannot have any subtype (final classes, enums and records
+     * without nested types) are rendered early, since the subtype list of the other types is known
+     * only after all sources are scanned. The cross-cutting outputs (root.js, the API main page,
+     * the document pages and the landing page) are built in the final pass as usual.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden usePipelinedBuild() {
+        this.pipelined = true;
+        return this;
+    }
+
+    /**
+     * Configures the build to write a machine-readable report of the wall-clock and CPU time spent
+     * in each phase (javac scan, model construction, page rendering, file writes, CSS build and
+     * network fetches) and the counters of the generated artifacts. The report is written in JSON
+     * next to the output directory as {@code <address>.report.json}.
+     *
+     * @return This {@link VioletEvergarden} instance for chaining.
+     */
+    public final VioletEvergarden useBuildReport() {
+        this.report = true;
+        return this;
+    }
+
+    /**
+     * Builds the documentation, then watches {@link #sources()} and {@link #documents()} and
+     * rebuilds it whenever a file is created, modified or deleted. The compiler
+     * infrastructure (documentation tool and file manager with its classpath index) stays resident
+     * between the builds, and each rebuild is incremental (see {@link #useIncrementalBuild()}), so
+     * only the pages affected by the change are rendered again.
+     * <p>
+     * The scanned model is stored as {@link #useModelCache()} does. When a change leaves all java
+     * files as they were (a resource is edited or a file is saved without modification), the
+     * rebuild restores the model instead of running the documentation tool again.
+     * <p>
+     * Changes are coalesced until the directories have been quiet for a short period, so saving
+     * several files at once triggers a single rebuild.
+     *
+     * @return A {@link Disposable} to stop watching and release the resident compiler.
+     */
+    public final Disposable watch() {
+        synchronized (this) {
+            incremental = true;
+            if (tool == null) tool = ToolProvider.getSystemDocumentationTool();
+            manager = tool.getStandardFileManager(listener(), Locale.getDefault(), encoding());
+
+            write();
         }
 
-        return I.schedule(() -> {
-            DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        Path output = address().asJavaPath().toAbsolutePath();
 
-            try (ToListener listener = new ToListener("violet.document");
-                    StandardJavaFileManager m = tool.getStandardFileManager(listener(), Locale.getDefault(), encoding())) {
-                m.setLocation(SOURCE_PATH, I.signal(sources()).startWith(directories).map(Directory::asJavaFile).toList());
-                m.setLocation(CLASS_PATH, I.signal(classpath()).map(Location::asJavaFile).toList());
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            for (Directory directory : I.signal(sources()).merge(I.signal(documents())).toList()) {
+                register(service, directory.asJavaPath());
+            }
 
-                List<JavaFileObject> files = I.signal(m.list(SOURCE_PATH, "", Set.of(SOURCE), true)).take(o -> {
-                    String name = o.getName();
-                    for (Directory directory : directories) {
-                        if (name.startsWith(directory.toString())) {
-                            return name.endsWith("Test.java") || name.endsWith("Manual.java");
+            Thread watcher = new Thread(() -> {
+                try {
+                    while (true) {
+                        WatchKey key = service.take();
+                        boolean changed = false;
+
+                        // coalesce the successive events
+                        while (key != null) {
+                            Path dir = (Path) key.watchable();
+                            for (WatchEvent<?> event : key.pollEvents()) {
+                                if (event.context() instanceof Path name) {
+                                    Path path = dir.resolve(name);
+                                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                                        register(service, path);
+                                        changed = true;
+                                    } else if (!name.toString().startsWith(".") && !path.toAbsolutePath().startsWith(output)) {
+                                        changed = true;
+                                    }
+                                }
+                            }
+                            key.reset();
+                            key = service.poll(100, TimeUnit.MILLISECONDS);
                         }
-                    }
-                    return false;
-                }).toList();
 
-                if (!files.isEmpty()) {
-                    DocumentationTask task = tool.getTask(listener, m, listener(), DocumentDoclet.class, List.of("-package"), files);
-
-                    if (task.call()) {
-                        listener().report(new Message(OTHER, "sample", "Succeed in scanning documents."));
-                    } else {
-                        listener().report(new Message(ERROR, "sample", "Failed in scanning documents."));
-                        throw new Error("Fail in scanning sample sources.");
+                        if (changed) {
+                            try {
+                                rebuild();
+                            } catch (Throwable e) {
+                                log(ERROR, "violet.watch", "Fail to rebuild. " + e.getMessage());
+                            }
+                        }
                     }
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    // stop watching
+                }
+            }, "Evergarden Watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            log("Watching the source and document directories.");
+
+            return () -> {
+                watcher.interrupt();
+                I.quiet(service);
+                synchronized (this) {
+                    I.quiet(manager);
+                    manager = null;
                 }
-            } catch (Throwable e) {
+            };
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Register the specified directory and all its sub directories to the watch service.
+     *
+     * @param service The watch service.
+     * @param directory The root directory to watch.
+     */
+    private static void register(WatchService service, Path directory) {
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> dirs = Files.walk(directory)) {
+                dirs.filter(Files::isDirectory).forEach(dir -> {
+                    try {
+                        dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    } catch (IOException e) {
+                        throw I.quiet(e);
+                    }
+                });
+            } catch (IOException e) {
                 throw I.quiet(e);
             }
-        });
+        }
     }
 
     /**
-     * Scans the specified main source directories for API documentation using a dedicated Doclet
-     * ({@link APIDoclet}).
-     *
-     * @return A {@link CompletableFuture} representing the asynchronous scanning task.
+     * Discard the model of the previous build and build the documentation again.
      */
-    private CompletableFuture scanAPI() {
-        List<Directory> directories = sources();
-        if (directories == null || directories.isEmpty()) {
-            log("No API source directories specified, skipping API scan.");
-            return CompletableFuture.completedFuture(null);
+    private synchronized void rebuild() {
+        if (manager == null) {
+            return; // disposed
         }
 
-        return I.schedule(() -> {
-            DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        long start = System.nanoTime();
+        letter.clear();
+        docs.clear();
+        apis.clear();
+        manuals.clear();
+        internals.clear();
+        ClassInfo.clear();
+
+        write();
+        log("Rebuilt in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms.");
+    }
+
+    /**
+     * Scans the main source directories for API documentation and the document directories for
+     * manual (`*Manual.java`) and test (`*Test.java`) files in a single javac front-end pass using
+     * {@link SourceDoclet}. Sharing one {@link DocletEnvironment} means the API sources, which the
+     * document files refer to, are parsed and attributed only once.
+     */
+    private void scan() {
+        List<Directory> sources = sources() == null ? List.of() : sources();
+        List<Directory> documents = documents() == null ? List.of() : documents();
+        if (sources.isEmpty()) log("No API source directories specified, skipping API scan.");
+        if (documents.isEmpty()) log("No document/sample directories specified, skipping document scan.");
+        if (sources.isEmpty() && documents.isEmpty()) {
+            return;
+        }
 
-            try (ToListener listener = new ToListener("violet.api");
-                    StandardJavaFileManager m = tool.getStandardFileManager(listener(), Locale.getDefault(), encoding())) {
-                m.setLocation(SOURCE_PATH, I.signal(directories).map(Directory::asJavaFile).toList());
-                m.setLocation(CLASS_PATH, classpath() == null ? null
-                        : classpath().stream().map(psychopath.Location::asJavaFile).collect(Collectors.toList()));
-                m.setLocationFromPaths(DOCUMENTATION_OUTPUT, List.of(address().create().asJavaPath()));
+        if (tool == null) tool = ToolProvider.getSystemDocumentationTool();
+        StandardJavaFileManager m = manager != null ? manager : tool.getStandardFileManager(listener(), Locale.getDefault(), encoding());
+
+        try (ToListener listener = new ToListener("violet.scan")) {
+            m.setLocation(SOURCE_PATH, I.signal(sources).startWith(documents).map(Directory::asJavaFile).toList());
+            m.setLocation(CLASS_PATH, I.signal(classpath()).map(Location::asJavaFile).toList());
+            m.setLocationFromPaths(DOCUMENTATION_OUTPUT, List.of(address().create().asJavaPath()));
+
+            List<JavaFileObject> files = new ArrayList();
+            for (JavaFileObject file : m.list(SOURCE_PATH, "", Set.of(SOURCE), true)) {
+                String name = file.getName();
+                if (sources.stream().anyMatch(directory -> name.startsWith(directory.toString()))) {
+                    apis.add(file.toUri());
+                    files.add(file);
+                }
+                if (documents.stream().anyMatch(directory -> name.startsWith(directory.toString()))) {
+                    if (name.endsWith("Test.java") || name.endsWith("Manual.java")) {
+                        manuals.add(file.toUri());
+                        if (!files.contains(file)) files.add(file);
+                    }
+                }
+            }
 
-                Iterable<JavaFileObject> files = m.list(SOURCE_PATH, "", Set.of(SOURCE), true);
-                DocumentationTask task = tool.getTask(listener, m, listener(), APIDoclet.class, List.of("-protected"), files);
+            if (!files.isEmpty()) {
+                DocumentationTask task = tool.getTask(listener, m, listener(), SourceDoclet.class, List.of("-package"), files);
 
                 if (task.call()) {
-                    listener().report(new Message(OTHER, "build", "Succeed in building API."));
+                    listener().report(new Message(OTHER, "build", "Succeed in scanning sources."));
+
+                    // The model holds everything the pages need, release the compiler.
+                    for (ClassInfo info : letter.types) {
+                        info.detach();
+                    }
+                    for (ClassInfo info : docs) {
+                        info.detach();
+                    }
+                    ClassInfo.clear();
                 } else {
-                    listener().report(new Message(ERROR, "build", "Failed in building API."));
+                    listener().report(new Message(ERROR, "build", "Failed in scanning sources."));
+                    throw new Error("Fail in scanning sources.");
                 }
-            } catch (Throwable e) {
-                throw I.quiet(e);
             }
-        });
+        } catch (Throwable e) {
+            throw I.quiet(e);
+        } finally {
+            Tool.ENVIRONMENT.remove();
+
+            // the resident file manager is closed when the watch mode is disposed
+            if (m != manager) I.quiet(m);
+        }
     }
 
     /**
@@ -460,43 +1126,220 @@ public abstract class VioletEvergarden {
      * @param letter The {@link Letter} model containing all necessary data for the site.
      */
     private void buildSite(Letter letter) {
-        SiteBuilder site = SiteBuilder.root(address()).guard("index.html", "main.css", "mocha.html", "mimic.test.js");
+        SiteBuilder site = renderer.site;
 
         // build CSS
-        I.load(VioletEvergarden.class);
-        Stylist.pretty()
-                .scheme(EvergardenDesignScheme.class)
-                .styles(I.findAs(StyleDeclarable.class))
-                .formatTo(letter.address().file("main.css").asJavaPath());
-
-        // build JS
-        site.build("main.js", VioletEvergarden.class.getResourceAsStream("main.js"));
-        site.build("mimic.js", VioletEvergarden.class.getResourceAsStream("mimic.js"));
-        site.build("highlight.js", VioletEvergarden.class.getResourceAsStream("highlight.js"), CodeHighlight.build());
-        site.buildJSONP("root.js", letter);
+        if (!critical) site.build("main.css", stylesheet);
 
         // build SVG
         site.build("main.svg", VioletEvergarden.class.getResourceAsStream("main.svg"));
 
-        // build HTML
+        // build JS (main.js refers to the others by their published names)
+        site.build("mimic.js", VioletEvergarden.class.getResourceAsStream("mimic.js"));
+        site.build("highlight.js", VioletEvergarden.class.getResourceAsStream("highlight.js"), BuildMetrics
+                .measure("network.highlight", () -> CodeHighlight.build(grammars, offline)));
+        String search = BuildMetrics.measure("site.search", () -> new SearchIndex().index(letter, docs).build(site));
+        String worker = site.build("search.js", VioletEvergarden.class.getResourceAsStream("search.js"));
+        site.buildJSONP("root.js", BuildMetrics.measure("site.index", () -> {
+            ClientIndex index = ClientIndex.build(letter, site, search, worker);
+            if (serviceWorker) index.serviceWorker = "sw.js";
+            index.fragment = fragments;
+            return index;
+        }));
+        site.build("main.js", resource("main.js").replace("\"./mimic.js\"", "\"./" + site.asset("mimic.js") + "\"")
+                .replace("\"./highlight.js\"", "\"./" + site.asset("highlight.js") + "\"")
+                .replace("\"main.svg#", "\"" + site.asset("main.svg") + "#"));
+
+        if (fingerprint) {
+            site.buildAssetManifest("assets.json");
+
+            // the pages must be rendered again when any asset name is changed
+            List<Object> values = new ArrayList(settings());
+            values.add(site.assets());
+            renderer.global(values);
+        }
+
+        // build HTML (the pages which are already rendered in the pipelined build are skipped)
         for (ClassInfo info : letter.types) {
-            site.buildHTML(new APIPage("api/" + info.id() + ".html", letter, info));
+            renderer.api(info);
         }
-        site.buildHTML(new APIMainPage("api/main.html", letter, this));
+        renderer.page(new APIMainPage("api/main.html", letter, this));
         for (ClassInfo info : docs) {
-            site.buildHTML(new DocumentPage("doc/" + info.id() + ".html", letter, info));
+            renderer.document(info);
         }
-        site.buildHTML(new DocumentOnePage("doc/one.html", letter, docs));
+        renderer.page(new DocumentOnePage("doc/one.html", letter, docs));
 
         // build change log
         letter.authority().to(host -> {
-            I.http(host.locateChangeLog(), String.class).waitForTerminate().skipError().to(md -> {
-                site.buildHTML(new ActivityPage("doc/changelog.html", letter, host.getChangeLog(md)));
+            Variable<String> changelog = offline ? readChangeLog()
+                    : BuildMetrics.measure("network.changelog", () -> I.http(host.locateChangeLog(), String.class)
+                            .waitForTerminate()
+                            .skipError()
+                            .to());
+
+            changelog.to(md -> {
+                renderer.page(new ActivityPage("doc/changelog.html", letter, host.getChangeLog(md)));
             });
         });
 
-        // create at last for live reload
+        int skipped = renderer.complete(docs);
+        if (incremental) log("Incremental build skipped " + skipped + " unchanged pages.");
+
+        // build the landing page
         site.buildHTML(new LandingPage("index.html", letter, docs));
+
+        // the pruned stylesheet and the used characters are known only after all pages are built
+        if (critical) BuildMetrics.measure("site.css", () -> site.buildCriticalCSS("main.css"));
+        if (fonts != null) {
+            site.buildGlyphs(GLYPHS);
+            if (subsetter != null) BuildMetrics.measure("site.font", () -> faces.subset(site, site.glyphs(GLYPHS), subsetter));
+        }
+
+        if (serviceWorker) {
+            Set<String> shell = I.set(site.asset("main.css"), site.asset("main.js"), site.asset("mimic.js"), site
+                    .asset("highlight.js"), site.asset("main.svg"), site.asset("root.js"));
+
+            BuildMetrics.measure("site.precache", () -> site.buildServiceWorker("sw.js", resource("sw.js"), path -> shell
+                    .contains(path) || (precachePages && (path.equals("index.html") || PAGES.matcher(path).matches()))));
+        }
+
+        BuildMetrics.measure("site.compress", site::finish);
+
+        if (budget != null) checkBudget(site.weights());
+
+        int deleted = site.sweep();
+        if (sync) log("Deleted " + deleted + " files which are no longer generated.");
+
+        if (delta) {
+            Path output = address().asJavaPath().toAbsolutePath();
+            int changed = BuildMetrics.measure("site.delta", () -> site.buildDelta(output.resolveSibling(output.getFileName() + ".delta.json")));
+            log("Changed " + changed + " files since the previous build.");
+        }
+
+        // touch at last for live reload
+        if (archive == null && site.changes() != 0) {
+            try {
+                Files.writeString(address().asJavaPath().resolve(LIVE), String.valueOf(System.currentTimeMillis()));
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
+    }
+
+    /**
+     * Check the weight of each page against the budget.
+     *
+     * @param weights The weight of each page.
+     */
+    private void checkBudget(Map<String, PageBudget.Weight> weights) {
+        int exceeded = 0;
+        for (Map.Entry<String, PageBudget.Weight> entry : weights.entrySet()) {
+            List<String> violations = budget.check(entry.getValue());
+            if (!violations.isEmpty()) {
+                exceeded++;
+                log(budget.isStrict() ? ERROR : WARNING, "violet.budget", entry.getKey() + " exceeds the page budget: " + String
+                        .join(", ", violations));
+            }
+        }
+
+        if (exceeded != 0 && budget.isStrict()) {
+            throw new Error(exceeded + " pages exceed the page budget.");
+        }
+    }
+
+    /**
+     * Format the global stylesheet. The self-hosted font files are written at the same time, since
+     * the web fonts are known only after the design scheme is applied.
+     *
+     * @param site The output site.
+     * @return The global stylesheet.
+     */
+    private String styles(SiteBuilder site) {
+        I.load(VioletEvergarden.class);
+
+        Stylist stylist = Stylist.pretty();
+        if (critical) stylist = stylist.importNormalizeStyle();
+        String css = stylist.scheme(EvergardenDesignScheme.class).styles(I.findAs(StyleDeclarable.class)).format();
+
+        if (fonts != null) {
+            faces = LocalFonts.scan(fonts, I.signal(Font.fromGoogle()).map(font -> font.name).toList(), family -> {
+                log(WARNING, "violet.font", "No font file of " + family + " is found in " + fonts);
+            });
+            css += faces.publish(site, subsetter != null);
+            site.fonts(faces.preloads());
+
+            if (subsetter == null) {
+                for (String family : faces.withoutWOFF2()) {
+                    log(WARNING, "violet.font", "No woff2 file of " + family + " is found in " + fonts + ", use the font subsetter to convert it.");
+                }
+            }
+        }
+        return css;
+    }
+
+    /**
+     * Read the bundled resource.
+     *
+     * @param name A resource name.
+     * @return The resource text.
+     */
+    private static String resource(String name) {
+        try (InputStream input = VioletEvergarden.class.getResourceAsStream(name)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Read the local change log in the working directory.
+     *
+     * @return The change log.
+     */
+    private Variable<String> readChangeLog() {
+        Path file = Path.of("CHANGELOG.md");
+        try {
+            return Files.isRegularFile(file) ? Variable.of(Files.readString(file)) : Variable.empty();
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Collect the site-wide settings which every page depends on.
+     *
+     * @return The site-wide settings.
+     */
+    private List<?> settings() {
+        return List.of(letter.title(), letter.description(), letter.encoding(), letter.doc()
+                .map(Letter.Doc::path)
+                .or(""), sources() != null && !sources().isEmpty(), letter.authority().map(Hosting::location).or(""), letter.date(), String.valueOf(VioletEvergarden.class.getPackage().getImplementationVersion()));
+    }
+
+    /**
+     * Find the date when any source or document was modified at last. It is used as the published
+     * date without the hosting, because the current date would change the site-wide settings (and
+     * render all pages again in the incremental build) every day.
+     *
+     * @return The latest modified date.
+     */
+    private LocalDate modified() {
+        LocalDate date = modified;
+        if (date == null) {
+            List<Directory> directories = new ArrayList();
+            if (sources() != null) directories.addAll(sources());
+            if (documents() != null) directories.addAll(documents());
+
+            long latest = I.signal(directories)
+                    .flatMap(directory -> directory.walkFile())
+                    .toList()
+                    .stream()
+                    .mapToLong(psychopath.File::lastModifiedMilli)
+                    .max()
+                    .orElse(0);
+            modified = date = latest == 0 ? LocalDate.now() : LocalDate.ofInstant(Instant.ofEpochMilli(latest), ZoneId.systemDefault());
+        }
+        return date;
     }
 
     /**
@@ -641,18 +1484,24 @@ public abstract class VioletEvergarden {
     }
 
     /**
-     * Base class for internal Doclets used by {@link VioletEvergarden}.
+     * Internal Doclet for processing both API source files and document / sample source files in
+     * one pass.
      * <p>
      * <strong>DO NOT USE THIS CLASS DIRECTLY.</strong> It is public only due to the
      * limitations of the {@link DocumentationTool} API requiring public Doclet classes.
      * </p>
-     * This class handles common Doclet initialization boilerplate and provides access
-     * to the parent {@link VioletEvergarden} instance via the {@link Tool} helper.
+     * Each specified type is dispatched by the file it is declared in. Types in the main source
+     * directories are registered as API with the main {@link Letter} model, types in `*Manual.java`
+     * files become primary document pages and `@see` tags in test methods (`*Test.java`) are
+     * extracted as examples (Doodles).
      */
-    private static abstract class BaseDoclet implements Doclet {
+    public static class SourceDoclet implements Doclet {
+
+        /** The name pattern of document. */
+        private static final Pattern DocName = Pattern.compile("(.*)Manual$");
 
         /** Reference to the parent VioletEvergarden configuration instance. */
-        protected final VioletEvergarden violet = Tool.useDoll();
+        private final VioletEvergarden violet = Tool.useDoll();
 
         /**
          * {@inheritDoc}
@@ -691,10 +1540,9 @@ public abstract class VioletEvergarden {
          * This is the main entry point for the Doclet execution.
          * </p>
          * 
-         * It sets up the {@link Tool} with the current {@link DocletEnvironment}
-         * and iterates over the specified elements, dispatching them to the appropriate
-         * `process` methods based on their {@link ElementKind}. Finally, it calls the
-         * {@link #complete()} hook.
+         * It sets up the {@link Tool} with the current {@link DocletEnvironment} and iterates over
+         * the specified type elements. Document types are processed first, API types after them,
+         * and finally the document tree and the type relationships are built.
          *
          * @param env The environment providing access to elements, utilities, etc.
          * @return Always true, indicating success (errors should be reported via the listener).
@@ -704,89 +1552,113 @@ public abstract class VioletEvergarden {
             // Critical: Setup the Tool helper for this execution thread
             Tool.ENVIRONMENT.set(env);
 
+            List<TypeElement> documents = new ArrayList();
+            List<TypeElement> apis = new ArrayList();
             for (Element element : env.getSpecifiedElements()) {
-                switch (element.getKind()) {
-                case MODULE:
-                    process((ModuleElement) element);
-                    break;
-
-                case PACKAGE:
-                    process((PackageElement) element);
-                    break;
-
-                default:
-                    TypeElement type = (TypeElement) element;
-                    process(new ClassInfo(type, new TypeResolver(violet.externals, violet.internals, type)));
-                    break;
+                if (element instanceof TypeElement type) {
+                    URI file = env.getDocTrees().getPath(type).getCompilationUnit().getSourceFile().toUri();
+
+                    if (violet.manuals.contains(file)) documents.add(type);
+                    if (violet.apis.contains(file) && isAccessible(type)) apis.add(type);
+                }
+            }
+
+            Map<TypeElement, ClassInfo> infos = new HashMap();
+            for (TypeElement type : documents) {
+                processDocument(infos.computeIfAbsent(type, this::create));
+            }
+
+            violet.log("Document scan complete. Building document tree...");
+            BuildMetrics.measure("scan.document", () -> violet.letter.buildDocumentTree(violet.docs));
+            violet.renderer.global(violet.settings());
+
+            for (TypeElement type : apis) {
+                ClassInfo info = infos.computeIfAbsent(type, this::create);
+                processAPI(info);
+
+                // The page of the type which can't have any subtype is already complete.
+                if (violet.pipelined && !violet.fingerprint && isLeaf(type)) {
+                    violet.renderer.api(info);
                 }
             }
-            complete();
+
+            violet.log("API scan complete. Building type relationships...");
+            BuildMetrics.measure("scan.relationship", violet.letter::buildTypeRelationship);
 
             return true;
         }
 
         /**
-         * Processes a class, interface, enum, record, or annotation type element.
-         * Subclasses must implement this to handle the specific logic for these types.
-         *
-         * @param root A {@link ClassInfo} wrapper around the type element being processed.
-         */
-        protected abstract void process(ClassInfo root);
-
-        /**
-         * Processes a package element.
-         * The base implementation does nothing. Subclasses can override if needed.
-         *
-         * @param root The package element being processed.
+         * Create the model of the specified type.
+         * 
+         * @param type A target type.
+         * @return The created model.
          */
-        protected void process(PackageElement root) {
+        private ClassInfo create(TypeElement type) {
+            ClassScan event = new ClassScan();
+            event.begin();
+
+            ClassInfo info = BuildMetrics.measure("scan.classinfo", () -> new ClassInfo(type, new TypeResolver(violet.externals, violet.internals, type)));
+            if (event.shouldCommit()) {
+                event.id = info.id();
+                event.members = info.fields().size() + info.constructors().size() + info.methods().size();
+                event.commit();
+            }
+            return info;
         }
 
         /**
-         * Processes a module element.
-         * The base implementation does nothing. Subclasses can override if needed.
-         *
-         * @param root The module element being processed.
+         * Test whether the specified type can't have any subtype and nested type, that is, the
+         * model of the type is complete without scanning the other types.
+         * 
+         * @param type A target type.
+         * @return Result.
          */
-        protected void process(ModuleElement root) {
+        private boolean isLeaf(TypeElement type) {
+            for (Element e : type.getEnclosedElements()) {
+                if (e instanceof TypeElement) {
+                    return false;
+                }
+            }
+            return type.getModifiers().contains(Modifier.FINAL) || type.getKind() == ElementKind.ENUM || type
+                    .getKind() == ElementKind.RECORD;
         }
 
         /**
-         * Hook method called after all specified elements have been processed by the `run` method.
-         * Subclasses can implement this for finalization tasks (e.g., building relationships).
+         * Test whether the specified type is part of the public API. Since the sources are scanned
+         * with package visibility for the documents, the API types (and all their enclosing types)
+         * are restricted to public and protected ones here.
+         * 
+         * @param type A target type.
+         * @return Result.
          */
-        protected abstract void complete();
-    }
-
-    /**
-     * Internal Doclet specifically for processing document and sample source files.
-     * <p>
-     * <strong>DO NOT USE THIS CLASS DIRECTLY.</strong> It is public only due to Doclet API
-     * limitations.
-     * </p>
-     * It identifies `*Manual.java` files to be treated as primary document pages and extracts
-     * code snippets referenced by `@see` tags in test methods (`*Test.java`) as examples (Doodles).
-     */
-    public static class DocumentDoclet extends BaseDoclet {
-
-        /** The name pattern of document. */
-        private static final Pattern DocName = Pattern.compile("(.*)Manual$");
+        private boolean isAccessible(TypeElement type) {
+            Element e = type;
+            while (e instanceof TypeElement) {
+                Set<Modifier> modifiers = e.getModifiers();
+                if (!modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.PROTECTED)) {
+                    return false;
+                }
+                e = e.getEnclosingElement();
+            }
+            return true;
+        }
 
         /**
-         * Processes a type element found during the document scan.
+         * Processes a type element found in the document directories.
          * If it's a public class ending in "Manual", it's added to the main document list.
          * Otherwise, it scans methods for `@see` tags pointing to examples and registers
          * them as {@link Doodle} objects in the {@link Letter}.
          *
          * @param info The {@link ClassInfo} of the type being processed.
          */
-        @Override
-        protected void process(ClassInfo info) {
+        private void processDocument(ClassInfo info) {
             Matcher matcher = DocName.matcher(info.outer().map(o -> o.name).or(""));
 
             if (matcher.matches() && info.isPublic()) {
                 violet.docs.add(0, info);
                 violet.log("Found document: " + info.id());
+                BuildMetrics.count("documents", 1);
             } else {
                 for (MethodInfo method : info.methods()) {
                     if (!method.getSeeTags().isEmpty()) {
@@ -794,6 +1666,7 @@ public abstract class VioletEvergarden {
                         for (XML see : method.getSeeTags()) {
                             String[] id = info.identify(see.text());
                             violet.letter.register(new Doodle(id[0], id[1], code, method.contents()));
+                            BuildMetrics.count("samples", 1);
                             violet.log("Registered doodle from " + info.name + "#" + method.name);
                         }
                     }
@@ -802,48 +1675,16 @@ public abstract class VioletEvergarden {
         }
 
         /**
-         * Called after processing all document/sample files.
-         * Triggers the building of the document navigation tree within the {@link Letter}.
-         */
-        @Override
-        protected void complete() {
-            violet.log("Document scan complete. Building document tree...");
-            violet.letter.buildDocumentTree(violet.docs);
-        }
-    }
-
-    /**
-     * Internal Doclet specifically for processing API source files.
-     * <p>
-     * <strong>DO NOT USE THIS CLASS DIRECTLY.</strong> It is public only due to Doclet API
-     * limitations.
-     * </p>
-     * It analyzes each type element encountered and registers its {@link ClassInfo} representation
-     * with the main {@link Letter} model.
-     */
-    public static class APIDoclet extends BaseDoclet {
-
-        /**
-         * Processes a type element found during the API scan.
+         * Processes a type element found in the main source directories.
          * Registers the corresponding {@link ClassInfo} with the {@link Letter}.
          *
          * @param info The {@link ClassInfo} of the type being processed.
          */
-        @Override
-        protected void process(ClassInfo info) {
+        private void processAPI(ClassInfo info) {
             violet.letter.register(info);
             violet.log("Found API: " + info.id());
-        }
-
-        /**
-         * Called after processing all API source files.
-         * Triggers the building of type relationships (inheritance, usage) within the
-         * {@link Letter}.
-         */
-        @Override
-        protected void complete() {
-            violet.log("API scan complete. Building type relationships...");
-            violet.letter.buildTypeRelationship();
+            BuildMetrics.count("types", 1);
+            BuildMetrics.count("members", info.fields().size() + info.constructors().size() + info.methods().size());
         }
     }
-}
\ No newline at end of file
+}
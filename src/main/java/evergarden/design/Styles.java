@@ -689,6 +689,29 @@ public class Styles implements EvergardenDSL {
         border.color(Color.rgb(60, 60, 60, 0.26)).width(1, px).solid().radius(Theme.radius);
     });
 
+    public static final Style SearchHits = Style.named(".hits", () -> {
+        EvergardenDSL.scrollable();
+        display.maxHeight(40, dvh);
+        margin.top(0.5, em);
+        padding.bottom(0.5, em);
+        border.bottom.color(Theme.surface).width(1, px).solid();
+
+        $.select("li", () -> {
+            text.whiteSpace.nowrap().unselectable();
+            border.radius(Theme.radius);
+            padding.horizontal(0.5, em).vertical(0.15, em);
+
+            $.hover(() -> {
+                background.color(Theme.surface);
+            });
+        });
+
+        $.select("a", () -> {
+            display.block();
+            text.decoration.none();
+        });
+    });
+
     public static final Style Tree = Style.named(".tree", () -> {
         EvergardenDSL.scrollable();
         display.height(70, dvh);
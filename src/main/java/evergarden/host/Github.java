@@ -9,15 +9,20 @@
  */
 package evergarden.host;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,8 +30,10 @@ import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
 
+import evergarden.BuildMetrics;
 import evergarden.Document;
 import evergarden.Region;
+import evergarden.Tool;
 import evergarden.javadoc.Markdown;
 import kiss.I;
 import kiss.JSON;
@@ -41,7 +48,7 @@ class Github implements Hosting {
 
     private final String name;
 
-    private final String branch;
+    private String branch;
 
     private LocalDate published;
 
@@ -54,15 +61,46 @@ class Github implements Hosting {
         int index = path.indexOf('/', 1);
         this.owner = path.substring(1, index);
         this.name = path.substring(index + 1);
-
-        JSON json = I.json("https://api.github.com/repos" + path);
-        this.branch = json.get(String.class, "default_branch");
     }
 
     private synchronized JSON metadata() {
         return rest.data("https://api.github.com/repos/" + owner + "/" + name);
     }
 
+    /**
+     * Read the repository metadata.
+     * 
+     * @param reader The metadata reader.
+     * @param defaults The value to use when the metadata is not available in the offline build.
+     * @return The read value.
+     */
+    private <T> T metadata(Function<JSON, T> reader, T defaults) {
+        JSON json = metadata();
+        return json == null ? defaults : reader.apply(json);
+    }
+
+    /**
+     * Retrieve the default branch. It is read from the local git repository in the offline build
+     * when the metadata is not available.
+     * 
+     * @return The default branch name.
+     */
+    private synchronized String branch() {
+        if (branch == null) {
+            branch = metadata(json -> json.text("default_branch"), null);
+
+            if (branch == null) {
+                try {
+                    String head = Files.readString(Path.of(".git/HEAD")).strip();
+                    branch = head.startsWith("ref: refs/heads/") ? head.substring(16) : "main";
+                } catch (IOException e) {
+                    branch = "main";
+                }
+            }
+        }
+        return branch;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -84,7 +122,7 @@ class Github implements Hosting {
      */
     @Override
     public String language() {
-        return metadata().text("language");
+        return metadata(json -> json.text("language"), "Java");
     }
 
     /**
@@ -92,7 +130,7 @@ class Github implements Hosting {
      */
     @Override
     public int countFork() {
-        return metadata().get(int.class, "forks_count");
+        return metadata(json -> json.get(int.class, "forks_count"), 0);
     }
 
     /**
@@ -100,7 +138,7 @@ class Github implements Hosting {
      */
     @Override
     public int countStar() {
-        return metadata().get(int.class, "stargazers_count");
+        return metadata(json -> json.get(int.class, "stargazers_count"), 0);
     }
 
     /**
@@ -108,7 +146,7 @@ class Github implements Hosting {
      */
     @Override
     public int countWatch() {
-        return metadata().get(int.class, "watchers_count");
+        return metadata(json -> json.get(int.class, "watchers_count"), 0);
     }
 
     /**
@@ -116,7 +154,7 @@ class Github implements Hosting {
      */
     @Override
     public int countIssue() {
-        return metadata().get(int.class, "open_issues_count");
+        return metadata(json -> json.get(int.class, "open_issues_count"), 0);
     }
 
     /**
@@ -124,7 +162,7 @@ class Github implements Hosting {
      */
     @Override
     public String icon() {
-        return metadata().get("owner").text("avatar_url");
+        return metadata(json -> json.get("owner").text("avatar_url"), "https://github.com/" + owner + ".png");
     }
 
     /**
@@ -140,7 +178,7 @@ class Github implements Hosting {
      */
     @Override
     public String description() {
-        return Variable.of(metadata().text("description")).or("");
+        return Variable.of(metadata(json -> json.text("description"), "")).or("");
     }
 
     /**
@@ -148,7 +186,7 @@ class Github implements Hosting {
      */
     @Override
     public String license() {
-        return metadata().get("license").text("spdx_id");
+        return metadata(json -> json.get("license").text("spdx_id"), "");
     }
 
     /**
@@ -159,7 +197,8 @@ class Github implements Hosting {
         if (contributors == null) {
             contributors = new ArrayList();
 
-            rest.data(metadata().text("contributors_url")).find("*").forEach(json -> {
+            JSON list = metadata(json -> rest.data(json.text("contributors_url")), null);
+            if (list != null) list.find("*").forEach(json -> {
                 contributors.add(new Contributor(json.text("login"), json.text("avatar_url"), json.text("html_url")));
             });
         }
@@ -170,11 +209,12 @@ class Github implements Hosting {
      * {@inheritDoc}
      */
     @Override
-    public List<Release> releases() {
+    public synchronized List<Release> releases() {
         if (releases == null) {
             releases = new ArrayList();
 
-            rest.data("https://api.github.com/repos/" + owner + "/" + name + "/releases").find("*").forEach(json -> {
+            JSON list = rest.data("https://api.github.com/repos/" + owner + "/" + name + "/releases");
+            if (list != null) list.find("*").forEach(json -> {
                 releases.add(new Release(json.text("tag_name"), Instant.parse(json.text("published_at"))
                         .atZone(ZoneId.systemDefault())
                         .toLocalDate(), Markdown.parse(json.text("body")), json.text("html_url")));
@@ -212,7 +252,7 @@ class Github implements Hosting {
      */
     @Override
     public String locateChangeLog() {
-        return "https://raw.githubusercontent.com/" + owner + "/" + name + "/" + branch + "/CHANGELOG.md";
+        return "https://raw.githubusercontent.com/" + owner + "/" + name + "/" + branch() + "/CHANGELOG.md";
     }
 
     /**
@@ -220,7 +260,7 @@ class Github implements Hosting {
      */
     @Override
     public String locateReadme() {
-        return "https://raw.githubusercontent.com/" + owner + "/" + name + "/" + branch + "/README.md";
+        return "https://raw.githubusercontent.com/" + owner + "/" + name + "/" + branch() + "/README.md";
     }
 
     /**
@@ -244,7 +284,7 @@ class Github implements Hosting {
      */
     @Override
     public String locateReader(Region region) {
-        return location() + "/blob/" + branch + "/src/test/java/" + region.location() + "#L" + region.startLine();
+        return location() + "/blob/" + branch() + "/src/test/java/" + region.location() + "#L" + region.startLine();
     }
 
     /**
@@ -252,7 +292,7 @@ class Github implements Hosting {
      */
     @Override
     public String locateEditor(Region region) {
-        return location() + "/edit/" + branch + "/src/test/java/" + region.location() + "#L" + region.startLine() + "-L" + region.endLine();
+        return location() + "/edit/" + branch() + "/src/test/java/" + region.location() + "#L" + region.startLine() + "-L" + region.endLine();
     }
 
     /**
@@ -298,13 +338,22 @@ class Github implements Hosting {
      */
     @Override
     public synchronized LocalDate getLatestPublishedDate() {
+        if (published == null && Tool.isOffline()) {
+            published = releases().stream().map(Release::date).max(Comparator.naturalOrder()).orElse(LocalDate.now());
+        }
+
         if (published == null) {
-            published = I.http("https://github.com/" + owner + "/" + name + "/releases/latest", XML.class).waitForTerminate().map(html -> {
-                String text = html.find(".markdown-body h2").first().text();
-                int start = text.indexOf('(');
-                int end = text.lastIndexOf(')');
-                return LocalDate.parse(text.substring(start + 1, end), DateTimeFormatter.ISO_LOCAL_DATE);
-            }).to().or(LocalDate.now());
+            published = BuildMetrics.measure("network.github", () -> I
+                    .http("https://github.com/" + owner + "/" + name + "/releases/latest", XML.class)
+                    .waitForTerminate()
+                    .map(html -> {
+                        String text = html.find(".markdown-body h2").first().text();
+                        int start = text.indexOf('(');
+                        int end = text.lastIndexOf(')');
+                        return LocalDate.parse(text.substring(start + 1, end), DateTimeFormatter.ISO_LOCAL_DATE);
+                    })
+                    .to()
+                    .or(LocalDate.now()));
         }
         return published;
     }
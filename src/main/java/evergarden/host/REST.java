@@ -14,6 +14,9 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
+import evergarden.BuildEvents.RestFetch;
+import evergarden.BuildMetrics;
+import evergarden.Tool;
 import kiss.I;
 import kiss.JSON;
 import kiss.Managed;
@@ -42,22 +45,39 @@ public class REST implements Storable<REST> {
     }
 
     /**
-     * Fetches JSON data from the given URL, using a 1-hour cache expiration policy.
+     * Fetches JSON data from the given URL, using a 1-hour cache expiration policy. In the offline
+     * build, the cached data is used regardless of its age and nothing is fetched.
      * 
      * @param url the URL to fetch data from
-     * @return the fetched or cached {@link JSON} object
+     * @return the fetched or cached {@link JSON} object, or null if it is not cached in the offline
+     *         build
      */
     public JSON data(String url) {
+        RestFetch event = new RestFetch();
+        event.begin();
+
         Item item = cache.get(url);
         long now = System.currentTimeMillis();
+        boolean cached = true;
 
-        if (item == null || now - item.lastAccessTime >= 1000 * 60 * 60) {
-            JSON json = I.json(url);
+        if (Tool.isOffline()) {
+            if (item == null) return null;
+        } else if (item == null || now - item.lastAccessTime >= 1000 * 60 * 60) {
+            JSON json = BuildMetrics.measure("network.github", () -> I.json(url));
             item = new Item(now, Base64.getEncoder().encodeToString(json.toString().getBytes()));
             cache.put(url, item);
             store();
+            cached = false;
+        }
+
+        byte[] data = Base64.getDecoder().decode(item.data);
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.cached = cached;
+            event.bytes = data.length;
+            event.commit();
         }
-        return I.json(new String(Base64.getDecoder().decode(item.data)));
+        return I.json(new String(data));
     }
 
     /**
@@ -9,13 +9,16 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -41,7 +44,7 @@ import kiss.XML;
 public class ClassInfo extends ParameterizableInfo implements Document, Comparable<ClassInfo> {
 
     /** The type-info mapping. */
-    private static final Map<Element, ClassInfo> infos = new HashMap();
+    private static final Map<Element, ClassInfo> infos = new ConcurrentHashMap();
 
     /** The package name. */
     public String packageName;
@@ -111,6 +114,112 @@ public class ClassInfo extends ParameterizableInfo implements Document, Comparab
         }
     }
 
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}. The outer and inner types
+     * are linked after the whole type table is read.
+     * 
+     * @param in The model input.
+     * @throws IOException
+     */
+    ClassInfo(ModelInput in) throws IOException {
+        super(in, null);
+        in.types.add(this);
+        this.resolver = null;
+        this.packageName = in.readText();
+        this.name = in.readText();
+        this.type = in.readText();
+        this.supers.addAll(in.readXMLs());
+        this.interfaces.addAll(in.readXMLs());
+        for (int i = in.readInt(); 0 < i; i--) {
+            fields.add(new FieldInfo(in, this));
+        }
+        for (int i = in.readInt(); 0 < i; i--) {
+            constructors.add(new ExecutableInfo(in, this));
+        }
+        for (int i = in.readInt(); 0 < i; i--) {
+            methods.add(new MethodInfo(in, this));
+        }
+        this.subs.addAll(in.readXMLs());
+        in.readType(outer -> this.outer = outer);
+        in.readTypes(inners::addAll);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ModelOutput out) throws IOException {
+        super.write(out);
+        out.writeText(packageName);
+        out.writeText(name);
+        out.writeText(type);
+        out.writeXMLs(supers);
+        out.writeXMLs(interfaces);
+        out.writeInt(fields.size());
+        for (FieldInfo field : fields) {
+            field.write(out);
+        }
+        out.writeInt(constructors.size());
+        for (ExecutableInfo constructor : constructors) {
+            constructor.write(out);
+        }
+        out.writeInt(methods.size());
+        for (MethodInfo method : methods) {
+            method.write(out);
+        }
+        out.writeXMLs(subs);
+        out.writeType(outer);
+        out.writeTypes(inners);
+    }
+
+    /**
+     * Collect the specified types and all types nested in or enclosing them, which make up the type
+     * table of {@link ModelOutput}.
+     * 
+     * @param types The root types.
+     * @return All related types.
+     */
+    public static List<ClassInfo> collect(Collection<ClassInfo> types) {
+        Set<ClassInfo> collected = new LinkedHashSet();
+        for (ClassInfo info : types) {
+            collect(info.outermost(), collected);
+        }
+        return new ArrayList(collected);
+    }
+
+    /**
+     * Collect the specified type and all nested types.
+     * 
+     * @param info A target type.
+     * @param collected The collected types.
+     */
+    private static void collect(ClassInfo info, Set<ClassInfo> collected) {
+        if (collected.add(info)) {
+            for (ClassInfo inner : info.inners) {
+                collect(inner, collected);
+            }
+        }
+    }
+
+    /**
+     * Discards all registered type information to scan the sources again or to release the
+     * compiler after the scan.
+     */
+    public static void clear() {
+        infos.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void detach() {
+        super.detach();
+        fields.forEach(DocumentInfo::detach);
+        constructors.forEach(DocumentInfo::detach);
+        methods.forEach(DocumentInfo::detach);
+    }
+
     private static String detectType(TypeElement root) {
         switch (root.getKind()) {
         case INTERFACE:
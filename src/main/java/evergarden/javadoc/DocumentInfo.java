@@ -9,6 +9,7 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -70,6 +71,7 @@ import com.sun.source.doctree.ValueTree;
 import com.sun.source.doctree.VersionTree;
 import com.sun.source.util.SimpleDocTreeVisitor;
 
+import evergarden.BuildEvents.CommentRender;
 import evergarden.Tool;
 import evergarden.design.Styles;
 import evergarden.web.CodeHighlight;
@@ -82,8 +84,8 @@ public class DocumentInfo {
 
     private static final Pattern CLASS_ASSIGN = Pattern.compile("^\\[!([A-Z]+)\\]\\R+");
 
-    /** The associated element. */
-    public transient final Element e;
+    /** The associated element, which is released after the scan (see {@link #detach()}). */
+    public transient Element e;
 
     protected final Variable<XML> comment = Variable.empty();
 
@@ -129,7 +131,14 @@ public class DocumentInfo {
 
         DocCommentTree docs = Tool.useDocTrees().getDocCommentTree(e);
         if (docs != null) {
+            CommentRender event = new CommentRender();
+            event.begin();
             comment.set(transform(xml(docs.getFullBody())));
+            if (event.shouldCommit()) {
+                event.element = e.toString();
+                event.length = comment.map(XML::toString).map(String::length).or(0);
+                event.commit();
+            }
             comment.to(x -> x.addClass(Styles.JavadocComment.className()));
             docs.getBlockTags().forEach(tag -> tag.accept(new TagScanner(), this));
 
@@ -137,6 +146,62 @@ public class DocumentInfo {
         }
     }
 
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}. The restored model has no
+     * javac element and type resolver.
+     *
+     * @param in The model input.
+     * @param parent The parent model.
+     * @throws IOException
+     */
+    protected DocumentInfo(ModelInput in, DocumentInfo parent) throws IOException {
+        this.e = null;
+        this.resolver = null;
+        if (parent != null) this.variables.putAll(parent.variables);
+
+        comment.set(in.readXML());
+        typeParameterTags.addAll(in.readPairs());
+        paramTags.addAll(in.readPairs());
+        throwsTags.addAll(in.readPairs());
+        authorTags.addAll(in.readXMLs());
+        seeTags.addAll(in.readXMLs());
+        sinceTags.addAll(in.readXMLs());
+        versionTags.addAll(in.readXMLs());
+        returnTag.set(in.readXML());
+        if (in.readBoolean()) documentLines = new int[] {in.readInt(), in.readInt()};
+    }
+
+    /**
+     * Write this model to restore it without scanning the sources again.
+     *
+     * @param out The model output.
+     * @throws IOException
+     */
+    public void write(ModelOutput out) throws IOException {
+        out.writeXML(comment);
+        out.writePairs(typeParameterTags);
+        out.writePairs(paramTags);
+        out.writePairs(throwsTags);
+        out.writeXMLs(authorTags);
+        out.writeXMLs(seeTags);
+        out.writeXMLs(sinceTags);
+        out.writeXMLs(versionTags);
+        out.writeXML(returnTag);
+        out.writeBoolean(documentLines != null);
+        if (documentLines != null) {
+            out.writeInt(documentLines[0]);
+            out.writeInt(documentLines[1]);
+        }
+    }
+
+    /**
+     * Release the associated javac element. All information the pages need is extracted while
+     * scanning, so the compiler's symbol tables and syntax trees can be discarded after that.
+     */
+    public void detach() {
+        e = null;
+    }
+
     private XML transform(XML xml) {
         if (xml != null) {
             for (XML e : xml.find("p, blockquote")) {
@@ -9,6 +9,7 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
@@ -70,6 +71,37 @@ public class ExecutableInfo extends ParameterizableInfo {
         this.id = name + "(" + joiner + ")";
     }
 
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}.
+     * 
+     * @param in The model input.
+     * @param parent The parent model.
+     * @throws IOException
+     */
+    ExecutableInfo(ModelInput in, DocumentInfo parent) throws IOException {
+        super(in, parent);
+        names.addAll(in.readTexts());
+        signatures.addAll(in.readXMLs());
+        comments.addAll(in.readXMLs());
+        exceptionSignatures.addAll(in.readXMLs());
+        exceptionComments.addAll(in.readXMLs());
+        this.id = in.readText();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ModelOutput out) throws IOException {
+        super.write(out);
+        out.writeTexts(names);
+        out.writeXMLs(signatures);
+        out.writeXMLs(comments);
+        out.writeXMLs(exceptionSignatures);
+        out.writeXMLs(exceptionComments);
+        out.writeText(id);
+    }
+
     /**
      * If you're referring to it from elsewhere in Javadoc, the parser won't resolve it with fully
      * qualified names, so strip off the information on the referenced side beforehand.
@@ -9,6 +9,8 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
+
 import javax.lang.model.element.VariableElement;
 
 import kiss.XML;
@@ -26,6 +28,27 @@ public class FieldInfo extends MemberInfo {
         this.type = parseTypeAsXML(e.asType()).addClass("return");
     }
 
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}.
+     * 
+     * @param in The model input.
+     * @param parent The parent model.
+     * @throws IOException
+     */
+    FieldInfo(ModelInput in, DocumentInfo parent) throws IOException {
+        super(in, parent);
+        this.type = in.readXML();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ModelOutput out) throws IOException {
+        super.write(out);
+        out.writeXML(type);
+    }
+
     /**
      * Build type element.
      * 
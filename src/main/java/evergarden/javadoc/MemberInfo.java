@@ -9,6 +9,8 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -31,6 +33,15 @@ public abstract class MemberInfo extends DocumentInfo {
     /** The source type. */
     private final DocumentInfo parent;
 
+    /** The deprecation state, computed while javac is available. */
+    private final boolean deprecated;
+
+    /** The override state, computed while javac is available. */
+    private final boolean overridden;
+
+    /** The document location of the declaring type. */
+    private final String location;
+
     /**
      * @param e
      * @param resolver
@@ -47,6 +58,42 @@ public abstract class MemberInfo extends DocumentInfo {
         this.name = name;
         this.modifiers = e.getModifiers();
         this.parent = parent;
+        this.deprecated = Tool.useElements().isDeprecated(e);
+        this.overridden = e.getAnnotation(Override.class) != null;
+        this.location = parent == null ? null : resolver.resolveDocumentLocation((TypeElement) parent.e);
+    }
+
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}.
+     * 
+     * @param in The model input.
+     * @param parent The parent model.
+     * @throws IOException
+     */
+    protected MemberInfo(ModelInput in, DocumentInfo parent) throws IOException {
+        super(in, parent);
+        this.name = in.readText();
+        this.modifiers = EnumSet.noneOf(Modifier.class);
+        for (String modifier : in.readTexts()) {
+            this.modifiers.add(Modifier.valueOf(modifier));
+        }
+        this.parent = parent;
+        this.deprecated = in.readBoolean();
+        this.overridden = in.readBoolean();
+        this.location = in.readText();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ModelOutput out) throws IOException {
+        super.write(out);
+        out.writeText(name);
+        out.writeTexts(I.signal(modifiers).map(Modifier::name).toList());
+        out.writeBoolean(deprecated);
+        out.writeBoolean(overridden);
+        out.writeText(location);
     }
 
     /**
@@ -87,7 +134,7 @@ public abstract class MemberInfo extends DocumentInfo {
      * @return Result.
      */
     public final boolean isDeprecated() {
-        return Tool.useElements().isDeprecated(e);
+        return deprecated;
     }
 
     /**
@@ -96,7 +143,7 @@ public abstract class MemberInfo extends DocumentInfo {
      * @return Result.
      */
     public final boolean isOverridden() {
-        return e.getAnnotation(Override.class) != null;
+        return overridden;
     }
 
     /**
@@ -156,7 +203,7 @@ public abstract class MemberInfo extends DocumentInfo {
     public final XML createName() {
         return I.xml("code")
                 .child("a")
-                .attr("href", resolver.resolveDocumentLocation((TypeElement) parent.e) + "#" + id())
+                .attr("href", location + "#" + id())
                 .text(name)
                 .parent();
     }
@@ -9,6 +9,8 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
+
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.TypeKind;
 
@@ -32,6 +34,29 @@ public class MethodInfo extends ExecutableInfo {
         this.returnType = parseTypeAsXML(e.getReturnType());
     }
 
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}.
+     * 
+     * @param in The model input.
+     * @param parent The parent model.
+     * @throws IOException
+     */
+    MethodInfo(ModelInput in, DocumentInfo parent) throws IOException {
+        super(in, parent);
+        this.isVoid = in.readBoolean();
+        this.returnType = in.readXML();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ModelOutput out) throws IOException {
+        super.write(out);
+        out.writeBoolean(isVoid);
+        out.writeXML(returnType);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden.javadoc;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import kiss.I;
+import kiss.XML;
+import kiss.Ⅱ;
+
+/**
+ * Reads the scanned model which {@link ModelOutput} wrote. The references between types are
+ * resolved by {@link #link()} after the whole type table is read, since a type can refer to the
+ * types which are written after it.
+ */
+public class ModelInput extends DataInputStream {
+
+    /** The type table in the order of reading. */
+    final List<ClassInfo> types = new ArrayList();
+
+    /** The deferred linkers of the type references. */
+    private final List<Runnable> linkers = new ArrayList();
+
+    /**
+     * @param in The underlying input.
+     */
+    public ModelInput(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Read the nullable text.
+     *
+     * @return The read text.
+     * @throws IOException
+     */
+    public String readText() throws IOException {
+        int length = readInt();
+        if (length == -1) {
+            return null;
+        }
+        return new String(readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the list of texts.
+     *
+     * @return The read texts.
+     * @throws IOException
+     */
+    public List<String> readTexts() throws IOException {
+        int size = readInt();
+        List<String> texts = new ArrayList(size);
+        for (int i = 0; i < size; i++) {
+            texts.add(readText());
+        }
+        return texts;
+    }
+
+    /**
+     * Read the nullable XML.
+     *
+     * @return The read XML.
+     * @throws IOException
+     */
+    public XML readXML() throws IOException {
+        String text = readText();
+        return text == null ? null : I.xml(text).children();
+    }
+
+    /**
+     * Read the list of XMLs.
+     *
+     * @return The read XMLs.
+     * @throws IOException
+     */
+    public List<XML> readXMLs() throws IOException {
+        int size = readInt();
+        List<XML> xmls = new ArrayList(size);
+        for (int i = 0; i < size; i++) {
+            xmls.add(readXML());
+        }
+        return xmls;
+    }
+
+    /**
+     * Read the list of named XMLs.
+     *
+     * @return The read XMLs.
+     * @throws IOException
+     */
+    public List<Ⅱ<String, XML>> readPairs() throws IOException {
+        int size = readInt();
+        List<Ⅱ<String, XML>> pairs = new ArrayList(size);
+        for (int i = 0; i < size; i++) {
+            pairs.add(I.pair(readText(), readXML()));
+        }
+        return pairs;
+    }
+
+    /**
+     * Read the reference to the type. It is resolved by {@link #link()}.
+     *
+     * @param linker The receiver of the nullable type.
+     * @throws IOException
+     */
+    public void readType(Consumer<ClassInfo> linker) throws IOException {
+        int index = readInt();
+        linkers.add(() -> linker.accept(index == -1 ? null : types.get(index)));
+    }
+
+    /**
+     * Read the references to the types. They are resolved by {@link #link()}.
+     *
+     * @param linker The receiver of the types.
+     * @throws IOException
+     */
+    public void readTypes(Consumer<List<ClassInfo>> linker) throws IOException {
+        int size = readInt();
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = readInt();
+        }
+        linkers.add(() -> {
+            List<ClassInfo> list = new ArrayList(size);
+            for (int index : indices) {
+                list.add(types.get(index));
+            }
+            linker.accept(list);
+        });
+    }
+
+    /**
+     * Read the type table.
+     *
+     * @return The read types.
+     * @throws IOException
+     */
+    public List<ClassInfo> readTypeTable() throws IOException {
+        int size = readInt();
+        for (int i = 0; i < size; i++) {
+            new ClassInfo(this);
+        }
+        return types;
+    }
+
+    /**
+     * Resolve all type references which have been read.
+     */
+    public void link() {
+        linkers.forEach(Runnable::run);
+        linkers.clear();
+    }
+}
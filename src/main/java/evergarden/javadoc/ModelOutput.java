@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden.javadoc;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import kiss.I;
+import kiss.Variable;
+import kiss.XML;
+import kiss.Ⅱ;
+
+/**
+ * Writes the scanned model in the compact binary form which {@link ModelInput} reads. The types are
+ * written by their index in the type table, so the relationships between them survive the round
+ * trip.
+ */
+public class ModelOutput extends DataOutputStream {
+
+    /** The type table. */
+    private final List<ClassInfo> types;
+
+    /** The index of each type in the type table. */
+    private final Map<ClassInfo, Integer> indices = new HashMap();
+
+    /** The serializer of the XML nodes. */
+    private final Transformer transformer;
+
+    /**
+     * @param out The underlying output.
+     * @param types The type table.
+     */
+    public ModelOutput(OutputStream out, List<ClassInfo> types) {
+        super(out);
+
+        this.types = types;
+        for (int i = 0; i < types.size(); i++) {
+            indices.put(types.get(i), i);
+        }
+
+        try {
+            transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            transformer.setOutputProperty(OutputKeys.INDENT, "no");
+        } catch (TransformerException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Write the nullable text.
+     *
+     * @param text A text to write.
+     * @throws IOException
+     */
+    public void writeText(String text) throws IOException {
+        if (text == null) {
+            writeInt(-1);
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes);
+        }
+    }
+
+    /**
+     * Write the list of texts.
+     *
+     * @param texts The texts to write.
+     * @throws IOException
+     */
+    public void writeTexts(Collection<String> texts) throws IOException {
+        writeInt(texts.size());
+        for (String text : texts) {
+            writeText(text);
+        }
+    }
+
+    /**
+     * Write the nullable XML.
+     *
+     * @param xml A XML to write.
+     * @throws IOException
+     */
+    public void writeXML(XML xml) throws IOException {
+        if (xml == null) {
+            writeText(null);
+        } else {
+            StringWriter writer = new StringWriter();
+            writer.write("<model>");
+            for (XML node : xml) {
+                try {
+                    transformer.transform(new DOMSource(node.to()), new StreamResult(writer));
+                } catch (TransformerException e) {
+                    throw new IOException(e);
+                }
+            }
+            writer.write("</model>");
+            writeText(writer.toString());
+        }
+    }
+
+    /**
+     * Write the nullable XML.
+     *
+     * @param xml A XML to write.
+     * @throws IOException
+     */
+    public void writeXML(Variable<XML> xml) throws IOException {
+        writeXML(xml.v);
+    }
+
+    /**
+     * Write the list of XMLs.
+     *
+     * @param xmls The XMLs to write.
+     * @throws IOException
+     */
+    public void writeXMLs(Collection<XML> xmls) throws IOException {
+        writeInt(xmls.size());
+        for (XML xml : xmls) {
+            writeXML(xml);
+        }
+    }
+
+    /**
+     * Write the list of named XMLs.
+     *
+     * @param pairs The named XMLs to write.
+     * @throws IOException
+     */
+    public void writePairs(List<Ⅱ<String, XML>> pairs) throws IOException {
+        writeInt(pairs.size());
+        for (Ⅱ<String, XML> pair : pairs) {
+            writeText(pair.ⅰ);
+            writeXML(pair.ⅱ);
+        }
+    }
+
+    /**
+     * Write the reference to the type.
+     *
+     * @param type A nullable type.
+     * @throws IOException
+     */
+    public void writeType(ClassInfo type) throws IOException {
+        writeInt(type == null ? -1 : indices.get(type));
+    }
+
+    /**
+     * Write the references to the types.
+     *
+     * @param types The types to write.
+     * @throws IOException
+     */
+    public void writeTypes(Collection<ClassInfo> types) throws IOException {
+        writeInt(types.size());
+        for (ClassInfo type : types) {
+            writeType(type);
+        }
+    }
+
+    /**
+     * Write the type table.
+     *
+     * @throws IOException
+     */
+    public void writeTypeTable() throws IOException {
+        writeInt(types.size());
+        for (ClassInfo type : types) {
+            type.write(this);
+        }
+    }
+}
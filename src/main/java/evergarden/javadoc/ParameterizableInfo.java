@@ -9,6 +9,7 @@
  */
 package evergarden.javadoc;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -60,6 +61,31 @@ public abstract class ParameterizableInfo extends MemberInfo {
         });
     }
 
+    /**
+     * Restore the model which is written by {@link #write(ModelOutput)}.
+     * 
+     * @param in The model input.
+     * @param parent The parent model.
+     * @throws IOException
+     */
+    protected ParameterizableInfo(ModelInput in, DocumentInfo parent) throws IOException {
+        super(in, parent);
+        names.addAll(in.readTexts());
+        signatures.addAll(in.readXMLs());
+        comments.addAll(in.readXMLs());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ModelOutput out) throws IOException {
+        super.write(out);
+        out.writeTexts(names);
+        out.writeXMLs(signatures);
+        out.writeXMLs(comments);
+    }
+
     /**
      * Compute the number of type variable declarations.
      */
@@ -32,6 +32,7 @@ import com.sun.source.util.DocSourcePositions;
 import com.sun.source.util.DocTrees;
 import com.sun.source.util.TreePath;
 
+import evergarden.BuildEvents.SourceRead;
 import evergarden.Tool;
 import kiss.I;
 import psychopath.Directory;
@@ -43,6 +44,23 @@ public class SourceCode {
      * Get the source code of the specified class.
      */
     public static String read(String fqcn, String memberDescriptor, boolean bodyOnly) {
+        SourceRead event = new SourceRead();
+        event.begin();
+
+        String code = find(fqcn, memberDescriptor, bodyOnly);
+        if (event.shouldCommit()) {
+            event.type = fqcn;
+            event.member = memberDescriptor;
+            event.length = code.length();
+            event.commit();
+        }
+        return code;
+    }
+
+    /**
+     * Find the source code of the specified class in the document directories.
+     */
+    private static String find(String fqcn, String memberDescriptor, boolean bodyOnly) {
         try {
             for (Directory sample : Tool.useDoll().documents()) {
                 List<String> split = List.of(fqcn.split("\\."));
@@ -31,6 +31,7 @@ import javax.lang.model.type.DeclaredType;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree.Kind;
 
+import evergarden.BuildEvents.TypeResolution;
 import evergarden.Tool;
 import kiss.I;
 
@@ -76,7 +77,8 @@ public class TypeResolver {
     /** Imported types. */
     private final Map<String, String> importedTypes = new HashMap();
 
-    private TypeElement clazz;
+    /** The qualified name of the type which this resolver is used in. */
+    private final String className;
 
     /**
      * @param externals
@@ -84,7 +86,7 @@ public class TypeResolver {
     public TypeResolver(Map<String, String> externals, Set<String> internals, TypeElement clazz) {
         this.externals = externals == null ? Map.of() : externals;
         this.internals = internals == null ? Set.of() : internals;
-        this.clazz = clazz;
+        this.className = clazz.getQualifiedName().toString();
 
         collectImportedTypes(clazz);
         collectMemberTypes(clazz);
@@ -163,6 +165,9 @@ public class TypeResolver {
      * @param className
      */
     public final String resolveFQCN(String className) {
+        TypeResolution event = new TypeResolution();
+        event.begin();
+
         String front;
         String rear;
 
@@ -178,7 +183,13 @@ public class TypeResolver {
         String fqcn = importedTypes.get(front);
         if (fqcn == null) fqcn = JavaLangTypes.get(front);
 
-        return (fqcn == null ? front : fqcn) + rear;
+        String resolved = (fqcn == null ? front : fqcn) + rear;
+        if (event.shouldCommit()) {
+            event.name = className;
+            event.result = resolved;
+            event.commit();
+        }
+        return resolved;
     }
 
     /**
@@ -188,7 +199,16 @@ public class TypeResolver {
      * @return
      */
     public final String resolveDocumentLocation(String type) {
-        return resolve(type).location();
+        TypeResolution event = new TypeResolution();
+        event.begin();
+
+        String location = resolve(type).location();
+        if (event.shouldCommit()) {
+            event.name = type;
+            event.result = location;
+            event.commit();
+        }
+        return location;
     }
 
     /**
@@ -312,7 +332,7 @@ public class TypeResolver {
                 return builder.toString();
             }
 
-            if (!enclosingName.isEmpty() && clazz.getQualifiedName().toString().startsWith(packageName)) {
+            if (!enclosingName.isEmpty() && className.startsWith(packageName)) {
                 if (enclosingName.contains(".")) {
                     return "doc/" + packageName + "." + enclosingName + ".html#" + packageName + "." + enclosingName + "." + typeName;
                 } else {
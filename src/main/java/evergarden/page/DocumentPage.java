@@ -11,6 +11,9 @@ package evergarden.page;
 
 import static stylist.value.Numeric.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import evergarden.Document;
 import evergarden.Letter;
 import evergarden.design.EvergardenDSL;
@@ -39,6 +42,17 @@ public class DocumentPage<D extends Document> extends AbstractDocumentPage<D> {
         });
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<String> prefetch() {
+        List<String> paths = new ArrayList();
+        contents.next().to(doc -> paths.add("doc/" + doc.id() + ".html"));
+        contents.prev().to(doc -> paths.add("doc/" + doc.id() + ".html"));
+        return paths;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -9,12 +9,15 @@
  */
 package evergarden.page;
 
-import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import evergarden.Letter;
 import evergarden.design.EvergardenDSL;
 import evergarden.design.Styles;
-import evergarden.host.Hosting;
 import evergarden.web.HTML;
 import kiss.XML;
 import stylist.Query;
@@ -29,6 +32,9 @@ import stylist.value.Numeric;
 
 public abstract class Page<T> extends HTML {
 
+    /** The maximum number of the most linked API pages to prefetch. */
+    private static final int PREFETCH = 3;
+
     public final String path;
 
     protected final Letter letter;
@@ -59,22 +65,36 @@ public abstract class Page<T> extends HTML {
                 $("meta", name("viewport"), content("width=device-width, initial-scale=1"));
                 $("meta", name("description"), content("Explains how to use " + letter.title() + " and its API. " + letter.description()));
                 $("link", rel("preconnect"), href("https://cdn.jsdelivr.net"));
-                $("link", rel("preconnect"), href("https://fonts.googleapis.com"));
-                $("link", rel("preconnect"), href("https://fonts.gstatic.com"), attr("crossorigin"));
-                for (Font font : Font.fromGoogle()) {
-                    stylesheetAsync(font.uri);
+                if (fonts() == null) {
+                    $("link", rel("preconnect"), href("https://fonts.googleapis.com"));
+                    $("link", rel("preconnect"), href("https://fonts.gstatic.com"), attr("crossorigin"));
+                    for (Font font : Font.fromGoogle()) {
+                        stylesheetAsync(font.uri);
+                    }
                 }
                 $("title", text(letter.title() + " API"));
                 $("base", href(base));
-                module("mimic.js");
-                stylesheet(Stylist.NormalizeCSS);
-                stylesheet("main.css");
+                if (fonts() != null) {
+                    // the self-hosted fonts are declared in main.css
+                    for (String font : fonts()) {
+                        String format = font.substring(font.lastIndexOf('.') + 1);
+                        $("link", rel("preload"), href(font), attr("as", "font"), attr("type", "font/" + format), attr("crossorigin"));
+                    }
+                }
+                module(asset("mimic.js"));
+                if (inlined()) {
+                    // the normalize styles are bundled in main.css
+                    stylesheetAsync(asset("main.css"));
+                } else {
+                    stylesheet(Stylist.NormalizeCSS);
+                    stylesheet(asset("main.css"));
+                }
             });
             $("body", css.body, () -> {
                 // =============================
                 // Top Navigation
                 // =============================
-                $("header", css.header, attr("date", letter.authority().map(Hosting::getLatestPublishedDate).or(LocalDate.now())), () -> {
+                $("header", css.header, attr("date", letter.date()), () -> {
                     $("h1", css.title, () -> {
                         $("a", href("index.html"), code(letter.title()));
                     });
@@ -123,11 +143,49 @@ public abstract class Page<T> extends HTML {
                 });
             });
 
-            script("root.js");
-            module("main.js");
+            script(asset("root.js"));
+            module(asset("main.js"));
         });
 
         root.forEach(this::transform);
+        root.forEach(this::hint);
+    }
+
+    /**
+     * List the pages which the reader is likely to visit next (e.g. the next chapter). The
+     * navigation prefetches them with the most linked API pages in the article.
+     * 
+     * @return The relative paths of the pages.
+     */
+    protected List<String> prefetch() {
+        return List.of();
+    }
+
+    /**
+     * Write the prefetch hints of this page on the article ({@code data-prefetch}).
+     * 
+     * @param xml The root node.
+     */
+    private void hint(XML xml) {
+        for (XML article : xml.find("article")) {
+            Map<String, Integer> links = new LinkedHashMap();
+            for (XML link : article.find("a")) {
+                String href = link.attr("href");
+                if (href != null) {
+                    int index = href.indexOf('#');
+                    String page = index == -1 ? href : href.substring(0, index);
+                    if (page.startsWith("api/") && page.endsWith(".html") && !page.equals(path)) {
+                        links.merge(page, 1, Integer::sum);
+                    }
+                }
+            }
+
+            Set<String> hints = new LinkedHashSet(prefetch());
+            links.entrySet().stream().sorted(Map.Entry.<String, Integer> comparingByValue().reversed()).limit(PREFETCH).forEach(link -> {
+                hints.add(link.getKey());
+            });
+            if (!hints.isEmpty()) article.attr("data-prefetch", String.join(" ", hints));
+        }
     }
 
     /**
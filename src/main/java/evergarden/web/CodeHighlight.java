@@ -9,16 +9,24 @@
  */
 package evergarden.web;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 import kiss.I;
 
 public class CodeHighlight {
 
-    /** The language set to highlight code. */
-    private static final Set<String> languages = new HashSet();
+    /** The language set to highlight code, sorted to keep the generated script stable. */
+    private static final Set<String> languages = new ConcurrentSkipListSet();
+
+    /** The downloaded grammar of each language, kept to build the script again. */
+    private static final Map<String, String> grammars = new ConcurrentHashMap();
 
     /**
      * Add language to highlight.
@@ -31,16 +39,68 @@ public class CodeHighlight {
         }
     }
 
+    /**
+     * List all languages to highlight.
+     *
+     * @return The sorted language names.
+     */
+    public static List<String> languages() {
+        return List.copyOf(languages);
+    }
+
     /**
      * Build highlighting code.
      * 
      * @return
      */
     public static List<String> build() {
+        return build(null, false);
+    }
+
+    /**
+     * Build highlighting code. The grammar is read from the local directory if it exists there,
+     * otherwise it is downloaded unless offline.
+     * 
+     * @param local The local directory of grammars, or null.
+     * @param offline The flag whether to skip the language which has no local grammar.
+     * @return
+     */
+    public static List<String> build(Path local, boolean offline) {
         return I.signal(languages).flatMap(x -> {
+            String grammar = grammars.get(x);
+            if (grammar != null) {
+                return I.signal(grammar);
+            }
+
+            Path file = local == null ? null : local.resolve(x + ".min.js");
+            if (file != null && Files.isRegularFile(file)) {
+                try {
+                    return I.signal(register(x, Files.readString(file)));
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
+            }
+
+            if (offline) {
+                return I.<String> signal();
+            }
+
             return I.http("https://unpkg.com/@highlightjs/cdn-assets@11.7.0/es/languages/" + x + ".min.js", String.class)
                     .waitForTerminate()
-                    .map(text -> text.replaceAll("export default hljsGrammar", "J.registerLanguage('" + x + "', hljsGrammar)"));
+                    .map(text -> register(x, text));
         }).toList();
     }
+
+    /**
+     * Register the grammar module of the specified language.
+     * 
+     * @param language A language name.
+     * @param module A grammar module.
+     * @return The registering code.
+     */
+    private static String register(String language, String module) {
+        String grammar = module.replaceAll("export default hljsGrammar", "J.registerLanguage('" + language + "', hljsGrammar)");
+        grammars.put(language, grammar);
+        return grammar;
+    }
 }
\ No newline at end of file
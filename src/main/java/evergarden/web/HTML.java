@@ -9,7 +9,9 @@
  */
 package evergarden.web;
 
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import kiss.XML;
 import stylist.Style;
@@ -19,10 +21,78 @@ import stylist.Style;
  */
 public abstract class HTML extends lycoris.HTML {
 
+    /** The resolver of the published asset name. */
+    private Function<String, String> assets = Function.identity();
+
+    /**
+     * Configure the resolver of the published asset name (e.g. main.css to main.3f9a1c2b.css).
+     * 
+     * @param resolver A resolver.
+     */
+    public final void assets(Function<String, String> resolver) {
+        if (resolver != null) {
+            this.assets = resolver;
+        }
+    }
+
+    /** The flag whether the critical styles are inlined in the page. */
+    private boolean inlined;
+
+    /**
+     * Configure whether the critical styles are inlined in the page, then the global stylesheet
+     * should be loaded without blocking the rendering.
+     * 
+     * @param inlined The flag.
+     */
+    public final void inline(boolean inlined) {
+        this.inlined = inlined;
+    }
+
+    /**
+     * Test whether the critical styles are inlined in the page.
+     * 
+     * @return Result.
+     */
+    protected final boolean inlined() {
+        return inlined;
+    }
+
+    /** The font files to preload, or null to load the web fonts from Google Fonts. */
+    private List<String> fonts;
+
+    /**
+     * Configure the self-hosted font files to preload instead of loading the web fonts from Google
+     * Fonts.
+     * 
+     * @param preloads The published paths of the font files to preload.
+     */
+    public final void fonts(List<String> preloads) {
+        this.fonts = preloads;
+    }
+
+    /**
+     * List the self-hosted font files to preload.
+     * 
+     * @return The published paths, or null if the web fonts are loaded from Google Fonts.
+     */
+    protected final List<String> fonts() {
+        return fonts;
+    }
+
+    /**
+     * Resolve the published name of the specified asset.
+     * 
+     * @param path A logical path of the asset.
+     * @return The published path.
+     */
+    protected final String asset(String path) {
+        return assets.apply(path);
+    }
+
     protected final Consumer<XML> svg(String type) {
         return parent -> {
             $("svg", clazz(type), () -> {
-                $("use", attr("href", "main.svg#" + type));
+                $("use", attr("href", asset("main.svg") + "#" + type));
             });
         };
     }
@@ -0,0 +1,661 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Set;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import kiss.I;
+import kiss.XML;
+import psychopath.File;
+import psychopath.Locator;
+
+/**
+ * The streaming minifiers of the generated assets. The JavaScript minifier removes comments and the
+ * whitespaces which are not required to separate tokens, keeping string, template and regular
+ * expression literals as they are.
+ */
+public class Minify {
+
+    /** The elements which have no content and no end tag. */
+    private static final Set<String> VOIDS = Set
+            .of("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr");
+
+    /** The elements whose whitespaces are significant. */
+    private static final Set<String> RAWS = Set.of("pre", "code", "textarea", "script", "style");
+
+    /** The elements whose content is not escaped. */
+    private static final Set<String> SCRIPTS = Set.of("script", "style");
+
+    private final StringBuilder output = new StringBuilder();
+
+    private String line;
+
+    private int index;
+
+    private Context current = new Context();
+
+    private int regexEnd = -1;
+
+    /**
+     * 
+     */
+    private Minify(BufferedReader reader, Writer writer) {
+        try {
+            while ((line = reader.readLine()) != null) {
+                current.startLine();
+
+                int length = line.length();
+                for (index = 0; index < length; index++) {
+                    current.text(line.charAt(index));
+                }
+                current.endLine();
+            }
+
+            trimBackward(true);
+            writer.append(output).close();
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    private void trimForward() {
+        for (; index + 1 < line.length() && isDeletable(line.charAt(index + 1), false); index++) {
+        }
+    }
+
+    private void trimBackward() {
+        trimBackward(false);
+    }
+
+    private void trimBackward(boolean includeLine) {
+        int index = output.length() - 1;
+
+        if (index == -1) {
+            return;
+        }
+
+        for (; 0 <= index && isDeletable(output.charAt(index), includeLine); index--) {
+            output.deleteCharAt(index);
+        }
+    }
+
+    private boolean isDeletable(char c, boolean includeLine) {
+        return c == ' ' || c == '\t' || (includeLine && (c == '\r' || c == '\n'));
+    }
+
+    private boolean matcheForward(String text) {
+        int target = index + 1;
+        if (line.length() <= target) {
+            return false;
+        }
+        return line.subSequence(target, target + text.length()).equals(text);
+    }
+
+    private boolean matcheForward(char c) {
+        for (int i = index + 1; i < line.length(); i++) {
+            char next = line.charAt(i);
+            if (!isDeletable(next, false)) {
+                return next == c;
+            }
+        }
+        return false;
+    }
+
+    private boolean escaped() {
+        int count = 0;
+        int index = output.length() - 1;
+        while (output.charAt(index) == '\\') {
+            index--;
+            count++;
+        }
+        return count % 2 == 1;
+    }
+
+    /**
+     * Test whether the slash at the current position starts a regular expression literal rather
+     * than a division, judging from the last significant character.
+     * 
+     * @return Result.
+     */
+    private boolean isRegexStart() {
+        int index = output.length() - 1;
+        while (0 <= index && isDeletable(output.charAt(index), false)) {
+            index--;
+        }
+
+        if (index == -1) {
+            return true;
+        }
+
+        char last = output.charAt(index);
+        if ("(,=:[!&|?{};+-*%<>~^\n".indexOf(last) != -1) {
+            return true;
+        }
+
+        String head = output.substring(0, index + 1);
+        return head.endsWith("return") || head.endsWith("typeof") || head.endsWith("case");
+    }
+
+    /**
+     * Minify JavaScript code.
+     * 
+     * @param code A code to minify.
+     * @return The minified code.
+     */
+    public static String minify(String code) {
+        StringWriter writer = new StringWriter();
+        new Minify(new BufferedReader(new StringReader(code)), writer);
+        return writer.toString();
+    }
+
+    public static void minify(String inputFile, String outputFile) {
+        minify(Locator.file(inputFile), Locator.file(outputFile));
+    }
+
+    public static void minify(File input, File output) {
+        new Minify(input.newBufferedReader(), output.newBufferedWriter());
+    }
+
+    /**
+     * Minify CSS code. The comments are removed and the whitespaces are collapsed, then the
+     * whitespaces around the braces, semicolons, commas and child combinators are removed. The
+     * whitespaces around '+' and '-' are kept because calc() requires them.
+     * 
+     * @param code A code to minify.
+     * @return The minified code.
+     */
+    public static String css(String code) {
+        StringBuilder output = new StringBuilder(code.length());
+        int length = code.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+
+            if (c == '/' && i + 1 < length && code.charAt(i + 1) == '*') {
+                int end = code.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 1;
+            } else if (c == '"' || c == '\'') {
+                int start = i;
+                for (i++; i < length && code.charAt(i) != c; i++) {
+                    if (code.charAt(i) == '\\') i++;
+                }
+                output.append(code, start, Math.min(i + 1, length));
+            } else if (Character.isWhitespace(c)) {
+                while (i + 1 < length && Character.isWhitespace(code.charAt(i + 1))) {
+                    i++;
+                }
+                char prev = output.isEmpty() ? '{' : output.charAt(output.length() - 1);
+                char next = i + 1 < length ? code.charAt(i + 1) : '}';
+                if ("{};,>~:".indexOf(prev) == -1 && "{};,>~!".indexOf(next) == -1) {
+                    output.append(' ');
+                }
+            } else if (c == ';') {
+                int next = i + 1;
+                while (next < length && Character.isWhitespace(code.charAt(next))) {
+                    next++;
+                }
+                if (next == length || code.charAt(next) != '}') {
+                    output.append(c);
+                }
+            } else {
+                output.append(c);
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Write the compact HTML. The comments are removed, and the whitespace-only text between the
+     * block elements is removed because it is not rendered. The whitespace in the inline context
+     * and in the preformatted elements is kept as it is.
+     * 
+     * @param nodes The HTML nodes to write.
+     * @param output The output.
+     * @param inlines The names of the inline elements.
+     */
+    public static void html(Iterable<XML> nodes, StringBuilder output, String... inlines) {
+        Set<String> inline = Set.copyOf(I.signal(inlines).skip(name -> name.startsWith("&")).toList());
+        for (XML node : nodes) {
+            html(node.to(), output, inline, false);
+        }
+    }
+
+    /**
+     * Write the compact HTML.
+     * 
+     * @param node A node to write.
+     * @param output The output.
+     * @param inline The names of the inline elements.
+     * @param raw The flag whether the whitespace is significant.
+     */
+    private static void html(Node node, StringBuilder output, Set<String> inline, boolean raw) {
+        switch (node.getNodeType()) {
+        case Node.DOCUMENT_NODE:
+        case Node.DOCUMENT_FRAGMENT_NODE:
+            children(node, output, inline, raw);
+            break;
+
+        case Node.ELEMENT_NODE:
+            String name = node.getNodeName();
+            output.append('<').append(name);
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attribute = attributes.item(i);
+                output.append(' ').append(attribute.getNodeName()).append("=\"");
+                escape(attribute.getNodeValue(), output, true);
+                output.append('"');
+            }
+            output.append('>');
+
+            if (!VOIDS.contains(name)) {
+                if (SCRIPTS.contains(name)) {
+                    output.append(node.getTextContent());
+                } else {
+                    children(node, output, inline, raw || RAWS.contains(name));
+                }
+                output.append("</").append(name).append('>');
+            }
+            break;
+
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+            String text = node.getNodeValue();
+            if (!raw && text.isBlank() && !inline(node.getPreviousSibling(), inline) && !inline(node.getNextSibling(), inline)) {
+                break;
+            }
+            escape(text, output, false);
+            break;
+
+        default:
+            // ignore comment and processing instruction
+            break;
+        }
+    }
+
+    /**
+     * Write the compact HTML of all children.
+     * 
+     * @param node A parent node.
+     * @param output The output.
+     * @param inline The names of the inline elements.
+     * @param raw The flag whether the whitespace is significant.
+     */
+    private static void children(Node node, StringBuilder output, Set<String> inline, boolean raw) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            html(child, output, inline, raw);
+        }
+    }
+
+    /**
+     * Test whether the specified sibling is rendered in the inline context.
+     * 
+     * @param node A sibling node or null.
+     * @param inline The names of the inline elements.
+     * @return Result.
+     */
+    private static boolean inline(Node node, Set<String> inline) {
+        if (node == null) {
+            return false;
+        }
+
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+            return inline.contains(node.getNodeName());
+
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+            return !node.getNodeValue().isBlank();
+
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Escape the HTML special characters.
+     * 
+     * @param text A text to escape.
+     * @param output The output.
+     * @param attribute The flag whether the text is the attribute value.
+     */
+    private static void escape(String text, StringBuilder output, boolean attribute) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '&':
+                output.append("&amp;");
+                break;
+
+            case '<':
+                if (attribute) output.append(c);
+                else output.append("&lt;");
+                break;
+
+            case '>':
+                if (attribute) output.append(c);
+                else output.append("&gt;");
+                break;
+
+            case '"':
+                if (attribute) output.append("&quot;");
+                else output.append(c);
+                break;
+
+            default:
+                output.append(c);
+                break;
+            }
+        }
+    }
+
+    /**
+     * The lexical context.
+     */
+    private class Context {
+
+        /** The parent context. */
+        private Context parent;
+
+        /**
+         * Start new {@link Context}.
+         * 
+         * @param context
+         */
+        protected final void start(Context context) {
+            context.parent = this;
+            current = context;
+        }
+
+        /**
+         * End the current {@link Context}.
+         */
+        protected final void end() {
+            current = current.parent;
+        }
+
+        void text(char c) {
+            switch (c) {
+            case '"':
+                trimBackward();
+                output.append(c);
+                start(new DoubleStringLiteral());
+                break;
+
+            case '\'':
+                trimBackward();
+                output.append(c);
+                start(new SingleStringLiteral());
+                break;
+
+            case '`':
+                trimBackward();
+                output.append(c);
+                start(new TemplateLiteral());
+                break;
+
+            case '/':
+                if (matcheForward("*")) {
+                    trimBackward();
+                    start(new BlockComment());
+                    break;
+                } else if (matcheForward("/")) {
+                    trimBackward();
+                    start(new LineComment());
+                    break;
+                } else if (isRegexStart()) {
+                    trimBackward();
+                    output.append(c);
+                    start(new RegexLiteral());
+                    break;
+                } else {
+                    trimBackward();
+                    output.append(c);
+                    trimForward();
+                    break;
+                }
+
+            case ' ':
+            case '\t':
+                if (output.length() != 0 && output.charAt(output.length() - 1) != '\n') {
+                    output.append(c);
+                }
+                break;
+
+            case '+':
+            case '-':
+                // keep the space which separates the same operators (e.g. a - -b)
+                int length = output.length();
+                trimBackward(true);
+                if (output.length() < length && output.length() != 0 && output.charAt(output.length() - 1) == c) {
+                    output.append(' ');
+                }
+                output.append(c);
+                if (!matcheForward(c)) {
+                    trimForward();
+                }
+                break;
+
+            case '(':
+            case ')':
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case '*':
+            case '%':
+            case '=':
+            case '>':
+            case '<':
+            case '|':
+            case '&':
+            case '^':
+            case '~':
+            case '!':
+            case '?':
+            case ';':
+            case ':':
+            case '.':
+            case ',':
+                trimBackward(true);
+                output.append(c);
+                trimForward();
+                break;
+
+            default:
+                output.append(c);
+                break;
+            }
+        }
+
+        void startLine() {
+            line = line.stripLeading();
+        }
+
+        void endLine() {
+            if (output.length() == 0) {
+                return;
+            }
+
+            trimBackward();
+
+            switch (output.charAt(output.length() - 1)) {
+            case ';':
+            case '{':
+            case ',':
+                break;
+
+            case '/':
+                // the division continues to the next line, but the regular expression ends here
+                if (output.length() == regexEnd) output.append('\n');
+                break;
+
+            default:
+                output.append('\n');
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@link Context} for the single line comment.
+     */
+    private class LineComment extends Context {
+
+        @Override
+        void text(char c) {
+        }
+
+        @Override
+        void endLine() {
+            end();
+        }
+    }
+
+    /**
+     * {@link Context} for the block comment.
+     */
+    private class BlockComment extends Context {
+
+        @Override
+        void text(char c) {
+            if (c == '/' && line.charAt(index - 1) == '*') {
+                end();
+            }
+        }
+
+        @Override
+        void startLine() {
+        }
+
+        @Override
+        void endLine() {
+        }
+    }
+
+    /**
+     * {@link Context} for the string litereal.
+     */
+    private class SingleStringLiteral extends Context {
+
+        @Override
+        void text(char c) {
+            if (c == '\'' && !escaped()) {
+                output.append(c);
+                end();
+            } else {
+                output.append(c);
+            }
+        }
+
+        @Override
+        void startLine() {
+        }
+
+        @Override
+        void endLine() {
+            output.append('\n');
+        }
+    }
+
+    /**
+     * {@link Context} for the string litereal.
+     */
+    private class DoubleStringLiteral extends Context {
+
+        @Override
+        void text(char c) {
+            if (c == '"' && !escaped()) {
+                output.append(c);
+                end();
+            } else {
+                output.append(c);
+            }
+        }
+
+        @Override
+        void startLine() {
+        }
+
+        @Override
+        void endLine() {
+            output.append('\n');
+        }
+    }
+
+    /**
+     * {@link Context} for the template litereal.
+     */
+    private class TemplateLiteral extends Context {
+
+        @Override
+        void text(char c) {
+            boolean escaped = escaped();
+            output.append(c);
+
+            if (c == '`' && !escaped) {
+                end();
+            }
+        }
+
+        @Override
+        void startLine() {
+        }
+
+        @Override
+        void endLine() {
+            output.append('\n');
+        }
+    }
+
+    /**
+     * {@link Context} for the regular expression litereal.
+     */
+    private class RegexLiteral extends Context {
+
+        /** The flag whether the character class is open. */
+        private boolean inClass;
+
+        @Override
+        void text(char c) {
+            boolean escaped = escaped();
+            output.append(c);
+
+            if (!escaped) {
+                if (c == '[') {
+                    inClass = true;
+                } else if (c == ']') {
+                    inClass = false;
+                } else if (c == '/' && !inClass) {
+                    regexEnd = output.length();
+                    end();
+                }
+            }
+        }
+
+        @Override
+        void startLine() {
+        }
+
+        @Override
+        void endLine() {
+            // regular expression literal can't contain line terminator
+            end();
+            current.endLine();
+        }
+    }
+}
@@ -10,11 +10,14 @@
 import { Mimic as $ } from "./mimic.js"
 import hljs from "./highlight.js"
 
+// The class names which this script adds at runtime are listed in CriticalCSS.SCRIPTED, so the
+// critical styles keep their rules. Add the new name there too.
+
 // =====================================================
 // User Settings
 // =====================================================
 const
-	prefix = import.meta.url.substring(location.protocol.length + location.host.length + 2, import.meta.url.length - 7),
+	prefix = new URL(".", import.meta.url).pathname,
 	user = JSON.parse(localStorage.getItem("user")) || {"theme": "light"},
 	save = () => localStorage.setItem("user", JSON.stringify(user))
 	hljs.configure({ignoreUnescapedHTML: true})
@@ -45,9 +48,9 @@ const navi = new IntersectionObserver(e => {
 // =====================================================
 // Lightning Fast Viewer
 // =====================================================
-function FlashMan({ paged, cacheSize = 20, preload = "mouseover", preview = "section", ...previews }) {
-	var path = location.pathname, hash = location.hash;
-	const cache = new Map(), loading = new Set(), observer = new IntersectionObserver(set => {
+function FlashMan({ paged, cacheBytes = 4 << 20, intent = 80, preview = "section", ...previews }) {
+	var path = location.pathname, hash = location.hash, timer;
+	const cache = new Map(), loading = new Set(), stats = window.flashman = { hits: 0, misses: 0, prefetches: 0, evictions: 0, bytes: 0 }, observer = new IntersectionObserver(set => {
 		set.filter(x => x.isIntersecting && !x.target.init && (x.target.init = true)).forEach(x => {
 			for (let q in previews) x.target.querySelectorAll(q).forEach(e => previews[q](e))
 		})
@@ -70,27 +73,78 @@ function FlashMan({ paged, cacheSize = 20, preload = "mouseover", preview = "sec
 	// Reads the contents of the specified path into the cache. If it is already cached or currently being read, it will be ignored.
 	function load(p, poped, same) {
 		if (cache.has(p)) {
-			if (path == p) update(cache.get(p), poped, same)
+			if (path == p) {
+				stats.hits++
+				update(get(p), poped, same)
+			}
 		} else if (!loading.has(p)) {
+			if (path == p) stats.misses++
 			loading.add(p)
-			fetch(p)
-				.then(response => response.text())
-				.then(html => {
+			fragment(p)
+				.then(page => {
 					loading.delete(p)
-					cache.set(p, html)
-					if (path == p) update(html, poped, same)
-					if (cacheSize < cache.size) cache.delete(cache.keys().next().value)
+					put(p, page)
+					if (path == p) update(page, poped, same)
 				})
 		}
 	}
 
-	function update(text, poped, same) {
+	// Reads the page which is likely to be visited next.
+	function prefetch(p) {
+		if (!cache.has(p) && !loading.has(p)) {
+			stats.prefetches++
+			load(p)
+		}
+	}
+
+	// The cache is ordered from the least recently used page.
+	function get(p) {
+		let page = cache.get(p)
+		cache.delete(p)
+		cache.set(p, page)
+		return page
+	}
+
+	// Evicts the least recently used pages until the cache fits in the size (the current page is always kept).
+	function put(p, page) {
+		page.bytes = 2 * (page.title.length + page.article.length + page.aside.length)
+		if (cache.has(p)) stats.bytes -= cache.get(p).bytes
+		cache.delete(p)
+		cache.set(p, page)
+		stats.bytes += page.bytes
+
+		for (let [key, old] of cache) {
+			if (stats.bytes <= cacheBytes) break
+			if (key != path) {
+				cache.delete(key)
+				stats.bytes -= old.bytes
+				stats.evictions++
+			}
+		}
+	}
+
+	// Reads the fragment of the page which holds only the title, article and aside, or cuts them out of the whole page if the fragments are not built or not found.
+	function fragment(p) {
+		let html = p.endsWith("/") ? p + "index.html" : p
+		return (root.fragment && p.startsWith(prefix) && html.endsWith(".html") ? fetch(prefix + "fragment/" + html.substring(prefix.length, html.length - 5) + ".json") : Promise.reject())
+			.then(response => response.ok ? response.json() : Promise.reject())
+			.catch(() => fetch(p).then(response => response.text()).then(text => ({
+				title: text.substring(text.indexOf(">", text.indexOf("<title")) + 1, text.indexOf("</title>")),
+				article: text.substring(text.indexOf(">", text.indexOf("<article")) + 1, text.lastIndexOf("</article>")),
+				aside: text.substring(text.indexOf(">", text.indexOf("<aside")) + 1, text.lastIndexOf("</aside>")),
+				prefetch: (text.substring(text.indexOf("<article"), text.indexOf(">", text.indexOf("<article"))).match(/data-prefetch="([^"]*)"/) || ["", ""])[1]
+			})))
+	}
+
+	function update(page, poped, same) {
 		if (poped !== undefined || same !== undefined) $("article").add("fadeout")
 		setTimeout(() => {
-			if (text) {
-				$("article").html(text.substring(text.indexOf(">", text.indexOf("<article")) + 1, text.lastIndexOf("</article>")));
-				$("aside").html(text.substring(text.indexOf(">", text.indexOf("<aside")) + 1, text.lastIndexOf("</aside>"))); 
+			if (page) {
+				document.title = page.title
+				$("article").html(page.article);
+				$("aside").html(page.aside);
 			}
+			hint(page ? page.prefetch : document.querySelector("article")?.dataset.prefetch)
 			paged();
 			$(preview).each(e => observer.observe(e));
 			hashed(poped, same)
@@ -98,6 +152,11 @@ function FlashMan({ paged, cacheSize = 20, preload = "mouseover", preview = "sec
 		}, 300)
 	}
 
+	// Prefetches the likely next pages which the build has listed, while the browser is idle.
+	function hint(paths) {
+		if (paths) (window.requestIdleCallback || setTimeout)(() => paths.split(" ").forEach(p => prefetch(prefix + p)))
+	}
+
 	// Scroll into view automatically when hash is changed
 	function hashed(poped, same) {
 		let h = location.hash?.substring(1)
@@ -110,7 +169,7 @@ function FlashMan({ paged, cacheSize = 20, preload = "mouseover", preview = "sec
 
 	// Detect all URL changes
 	window.addEventListener("popstate", v => changed(true))
-	document.addEventListener("DOMContentLoaded", v => { update(); cache.set(location.pathname, document.documentElement.outerHTML) })
+	document.addEventListener("DOMContentLoaded", v => { update(); put(location.pathname, { title: document.title, article: $("article").html(), aside: $("aside").html(), prefetch: document.querySelector("article")?.dataset.prefetch }) })
 	document.addEventListener("click", v => {
 		let e = v.target.closest("a");
 		if (e != null && location.origin == e.origin) {
@@ -130,11 +189,13 @@ function FlashMan({ paged, cacheSize = 20, preload = "mouseover", preview = "sec
 	window.addEventListener("scroll", v => {
 		localStorage.setItem(location.pathname, window.scrollY)
 	})
-	// Preloader
-	document.addEventListener(preload, v => {
-		let e = v.target, key = e.pathname;
-		if (e.tagName === "A" && e.origin == location.origin && key != location.pathname && !cache.has(key)) load(key)
+	// Preloader (only when the pointer rests on the link for a moment)
+	document.addEventListener("mouseover", v => {
+		let e = v.target.closest("a");
+		clearTimeout(timer)
+		if (e != null && e.origin == location.origin && e.pathname != location.pathname) timer = setTimeout(() => prefetch(e.pathname), intent)
 	})
+	document.addEventListener("mouseout", v => clearTimeout(timer))
 }
 
 FlashMan({
@@ -272,6 +333,30 @@ class Select extends $ {
  */
 class APITree extends $ {
 
+	/** The package element of each package name. */
+	packages = new Map()
+
+	/** The published type shard of each package name. */
+	shards = new Map()
+
+	/** The loading type shard of each package name. */
+	loaded = new Map()
+
+	/** The loaded types of each package name. */
+	types = new Map()
+
+	/** The matched types of each shown package name. */
+	matched = new Map()
+
+	/** The rendered window [start, end, height] of the matched types of each package name. */
+	windows = new Map()
+
+	/** The height of the type row, measured from the rendered row. */
+	height = 0
+
+	/** The flag whether the rendering is requested in the next frame. */
+	requested = false
+
 	/**
 	 * Initialize by user configuration.
 	 */
@@ -282,36 +367,172 @@ class APITree extends $ {
 		this.packageFilter = new Select({ placeholder: "Select Package", model: root.packages })
 		this.typeFilter = new Select({ placeholder: "Select Type", multiple: true, model: ['Interface', 'Functional', 'AbstractClass', 'Class', 'Enum', 'Record', 'Annotation', 'Exception'] })
 		this.nameFilter = $("<input>").id("NameFilter").placeholder("Search by Name")
+		this.hits = $("<ol>").add("hits").show(false)
+
+		// the full-text search runs in the worker, the stale results are ignored
+		this.worker = new Worker(prefix + items.worker)
+		this.worker.onmessage = e => {
+			if (e.data.query == this.nameFilter.value().trim()) {
+				this.hits.empty().show(e.data.results.length).make("li", e.data.results, ([title, url, kind], li) => {
+					li.add(kind).make("a").href(prefix + url).text(title)
+				})
+			}
+		}
+
+		// only the types in the viewport are kept in DOM, the scroll events are merged per frame
+		this.tree = $("<div>").add("tree").scroll(e => this.request(), { passive: true })
+		new ResizeObserver(() => this.request()).observe(this.tree.nodes[0])
 
 		this.id("APINavi").change(e => this.update()).input(e => this.update())
 			.append(this.moduleFilter)
 			.append(this.packageFilter)
 			.append(this.typeFilter)
 			.append(this.nameFilter)
-			.make("div").add("tree")
-			.make("dl", items.packages, (pack, dl) => {
-				dl.id(pack).make("dt").click(e => dl.toggle("show"))
-					.make("code").text(pack)
-					
-				dl.make("dd", items.types.filter(type => type.packageName == pack), (type, dd) => {
-					dd.add(type.type)
-						.make("code").make("a").href(prefix + "api/" + type.packageName + "." + type.name + ".html").text(type.name)
-				})
-			})
+			.append(this.hits)
+			.append(this.tree)
+
+		this.tree.make("dl", items.packages, (pack, dl) => {
+			this.packages.set(pack, dl)
+			this.shards.set(pack, items.shards[items.packages.indexOf(pack)])
+
+			dl.id(pack).make("dt").click(e => this.load(pack).then(() => {
+				dl.toggle("show")
+				this.filter()
+			}))
+				.make("code").text(pack)
+		})
+	}
+
+	/**
+	 * Load the types of the specified package only once.
+	 */
+	load(pack) {
+		if (!this.loaded.has(pack)) {
+			this.loaded.set(pack, fetch(prefix + this.shards.get(pack)).then(res => res.json()).then(types => {
+				this.types.set(pack, types.map(([name, type]) => ({ packageName: pack, name, type, key: (pack + "." + name).toLowerCase() })))
+			}))
+		}
+		return this.loaded.get(pack)
 	}
 
 	update() {
-		let filter = item => {
-			if (this.typeFilter.selected.size != 0 && !this.typeFilter.selected.has(item.type)) return false
-			if (this.packageFilter.selected.size != 0 && !this.packageFilter.selected.has(item.packageName)) return false
-			if (this.nameFilter.value() != "" && (item.packageName + "." + item.name).toLowerCase().indexOf(this.nameFilter.value().toLowerCase()) == -1) return false
-			return true
+		this.search()
+
+		// the search needs the types of all packages, the package filter needs the selected ones
+		let packs = this.typeFilter.selected.size != 0 || this.nameFilter.value() != "" ? [...this.packages.keys()] : [...this.packageFilter.selected]
+		Promise.all(packs.map(pack => this.load(pack))).then(() => this.filter())
+	}
+
+	/**
+	 * Query the full-text search index by the name filter.
+	 */
+	search() {
+		let query = this.nameFilter.value().trim()
+		if (query.length < 2) {
+			this.hits.empty().show(false)
+		} else if (query != this.query) {
+			this.worker.postMessage({ query, manifest: root.search })
 		}
+		this.query = query
+	}
 
-		this.find("dl").set({ expand: this.typeFilter.selected.size != 0 || this.packageFilter.selected.size != 0 || this.nameFilter.value() != "" })
-		this.find("dd").each(e => {
-			$(e).show(filter(e.model))
+	/**
+	 * Compute the matched types of each shown package.
+	 */
+	filter() {
+		let types = this.typeFilter.selected, packs = this.packageFilter.selected, name = this.nameFilter.value().toLowerCase()
+		let expand = types.size != 0 || packs.size != 0 || name != ""
+
+		this.matched.clear()
+		this.windows.clear()
+		this.packages.forEach((dl, pack) => {
+			dl.set({ expand })
+			if (expand || dl.has("show")) this.matched.set(pack, (this.types.get(pack) || []).filter(item => {
+				if (types.size != 0 && !types.has(item.type)) return false
+				if (packs.size != 0 && !packs.has(item.packageName)) return false
+				if (name != "" && item.key.indexOf(name) == -1) return false
+				return true
+			}))
 		})
+		this.render()
+	}
+
+	/**
+	 * Render in the next frame.
+	 */
+	request() {
+		if (!this.requested) {
+			this.requested = true
+			requestAnimationFrame(() => {
+				this.requested = false
+				this.render()
+			})
+		}
+	}
+
+	/**
+	 * Write the matched types in the viewport (and a few rows around it) into each package and reserve the space of the others
+	 * by the margins. The package is written only when its window is changed, and the written rows are reused.
+	 */
+	render() {
+		let tree = this.tree.nodes[0], top = tree.getBoundingClientRect().top - tree.scrollTop, margin = 10,
+			height = this.measure(), shift = 0, updates = []
+
+		// read all positions before any writing, the unwritten packages are corrected by the expected height
+		this.packages.forEach((dl, pack) => {
+			let items = this.matched.get(pack) || [], element = dl.nodes[0], dt = element.firstElementChild, start = 0, end = 0
+			let bottom = dt.getBoundingClientRect().bottom, offset = bottom - top + shift
+			if (items.length) {
+				start = Math.min(items.length, Math.max(0, Math.floor((tree.scrollTop - offset) / height) - margin))
+				end = Math.min(items.length, Math.max(start, Math.ceil((tree.scrollTop + tree.clientHeight - offset) / height) + margin))
+			}
+			shift += items.length * height - (element.getBoundingClientRect().bottom - bottom - parseFloat(getComputedStyle(element).paddingBottom))
+
+			let rendered = this.windows.get(pack)
+			if (!rendered || rendered[0] != start || rendered[1] != end || rendered[2] != height) updates.push([pack, element, dt, items, start, end])
+		})
+
+		for (let [pack, element, dt, items, start, end] of updates) {
+			let rows = new Set(items.slice(start, end).map(item => this.row(item)))
+
+			// the rows in the window keep their nodes (and the hover and focus state)
+			for (let child of [...element.children]) if (child !== dt && !rows.has(child)) child.remove()
+			let next = dt.nextElementSibling
+			for (let row of rows) {
+				row.style.marginBottom = ""
+				if (row === next) next = next.nextElementSibling
+				else element.insertBefore(row, next)
+			}
+
+			let last = element.lastElementChild, rest = (items.length - end) * height + "px"
+			dt.style.marginBottom = (last === dt ? items.length : start) * height + "px"
+			if (last !== dt) last.style.marginBottom = rest
+			this.windows.set(pack, [start, end, height])
+		}
+
+		// the estimated height is corrected by the rendered row
+		if (updates.length && this.measure() != height) this.request()
+	}
+
+	/**
+	 * Create the row of the type only once.
+	 */
+	row(item) {
+		if (!item.row) {
+			let dd = $("<dd>").model(item).add(item.type)
+			dd.make("code").make("a").href(prefix + "api/" + item.packageName + "." + item.name + ".html").text(item.name)
+			item.row = dd.nodes[0]
+		}
+		return item.row
+	}
+
+	/**
+	 * Measure the height of the type row, it follows the font and zoom changes.
+	 */
+	measure() {
+		let row = this.tree.nodes[0].querySelector("dd")
+		if (row && row.offsetHeight) this.height = row.offsetHeight
+		return this.height || 24
 	}
 }
 
@@ -330,6 +551,11 @@ $("body>nav")
 			})
 	})
 
+// =====================================================
+// Offline Cache
+// =====================================================
+if (root.serviceWorker && "serviceWorker" in navigator && location.hostname != "localhost") navigator.serviceWorker.register(prefix + root.serviceWorker)
+
 // =====================================================
 // Live Reload
 // =====================================================
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+
+// =====================================================
+// Full-Text Search Worker
+// =====================================================
+// The index is written by SearchIndex as the manifest (search/index.json), the entries
+// (search/docs.json) and the chunks of terms keyed by the first two characters (search/xx.json).
+// All paths are relative to this worker, so they are resolved by fetch as they are.
+const files = new Map(), limit = 50, exact = 2
+
+function load(path) {
+	if (!files.has(path)) files.set(path, fetch(path).then(res => res.json()))
+	return files.get(path)
+}
+
+function tokenize(query) {
+	return [...new Set(query.toLowerCase().split(/[^\p{L}\p{N}_]+/u).filter(term => 2 <= term.length))]
+}
+
+function chunk(term) {
+	return [...term.substring(0, 2)].map(c => /[a-z0-9]/.test(c) ? c : "_").join("")
+}
+
+async function search(manifest, query) {
+	let index = await load(manifest), tokens = tokenize(query), scores = null
+	if (tokens.length == 0) return []
+
+	for (let token of tokens) {
+		let path = index.chunks[chunk(token)], hits = new Map()
+		if (path) {
+			let terms = await load(path)
+			for (let term in terms) {
+				if (term.startsWith(token)) {
+					let postings = terms[term], bonus = term == token ? exact : 1
+					for (let i = 0; i < postings.length; i += 2) {
+						hits.set(postings[i], (hits.get(postings[i]) || 0) + postings[i + 1] * bonus)
+					}
+				}
+			}
+		}
+
+		// every token must be matched
+		if (scores == null) {
+			scores = hits
+		} else {
+			for (let [doc, score] of scores) {
+				if (hits.has(doc)) scores.set(doc, score + hits.get(doc))
+				else scores.delete(doc)
+			}
+		}
+		if (scores.size == 0) return []
+	}
+
+	let docs = await load(index.docs)
+	return [...scores].sort((a, b) => b[1] - a[1]).slice(0, limit).map(([doc, score]) => [...docs[doc], score])
+}
+
+onmessage = e => search(e.data.manifest, e.data.query).then(results => postMessage({ query: e.data.query, results }))
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+
+// =====================================================
+// Offline Service Worker
+// =====================================================
+// The build prepends the precache manifest (self.manifest) which holds the content hash of each
+// precached file. The hashes of the installed files are kept in the cache under a private key, so
+// the new worker fetches only the files whose hash is changed since the previous build.
+//
+// The other pages are kept in the separate runtime cache which holds the recently visited ones
+// only. The page fragments and the search shards are always fetched from the network, since they
+// are read once per navigation or query and would evict the pages.
+const
+	store = "evergarden",
+	runtime = "evergarden-runtime",
+	limit = 64,
+	state = new URL("__precache__", registration.scope).href,
+	resolve = path => new URL(path, registration.scope).href,
+	precached = new Set(Object.keys(manifest.files).map(resolve)),
+	uncached = /^(fragment|search)\/.+\.json$/,
+	trim = cache => cache.keys().then(keys => Promise.all(keys.slice(0, Math.max(0, keys.length - limit)).map(key => cache.delete(key))))
+
+self.addEventListener("install", e => e.waitUntil(caches.open(store).then(cache => cache.match(state).then(res => res ? res.json() : {}).then(installed => {
+	let changed = Object.keys(manifest.files).filter(path => installed[path] != manifest.files[path])
+	let removed = Object.keys(installed).filter(path => !(path in manifest.files))
+
+	return Promise.all(changed.map(path => fetch(resolve(path), { cache: "reload" }).then(res => res.ok ? cache.put(resolve(path), res) : null)))
+		.then(() => Promise.all(removed.map(path => cache.delete(resolve(path)))))
+		.then(() => cache.put(state, new Response(JSON.stringify(manifest.files))))
+})).then(() => self.skipWaiting())))
+
+// the precache store holds nothing but the precached files and their hashes (the previous worker
+// kept the other pages there too)
+self.addEventListener("activate", e => e.waitUntil(caches.open(store)
+	.then(cache => cache.keys().then(keys => Promise.all(keys
+		.filter(req => req.url.startsWith(registration.scope) && req.url != state && !precached.has(req.url))
+		.map(req => cache.delete(req)))))
+	.then(() => self.clients.claim())))
+
+self.addEventListener("fetch", e => {
+	let url = new URL(e.request.url), key = url.origin + url.pathname.replace(/\/$/, "/index.html")
+	if (e.request.method != "GET" || url.origin != location.origin || !key.startsWith(registration.scope) || key == state) return
+
+	// the precached file is up to date by its hash
+	if (precached.has(key)) return e.respondWith(caches.open(store).then(cache => cache.match(key)).then(cached => cached || fetch(e.request)))
+	if (uncached.test(key.substring(registration.scope.length))) return
+
+	// the other is served from the runtime cache and revalidated in the background
+	e.respondWith(caches.open(runtime).then(cache => cache.match(key).then(cached => {
+		let updating = fetch(e.request).then(res => {
+			if (res.ok) e.waitUntil(cache.put(key, res.clone()).then(() => trim(cache)))
+			return res
+		})
+		if (cached) {
+			e.waitUntil(updating.catch(() => null))
+			return cached
+		}
+		return updating
+	})))
+})
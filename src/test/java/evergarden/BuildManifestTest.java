@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import antibug.CleanRoom;
+import kiss.I;
+import psychopath.Directory;
+
+class BuildManifestTest {
+
+    private static final CleanRoom room = new CleanRoom(true);
+
+    @Test
+    void upToDate() {
+        BuildManifest previous = new BuildManifest();
+        previous.input("a/A.java", "1");
+        previous.input(BuildManifest.GLOBAL, "2");
+        previous.depend("api/a.A.html", List.of("a/A.java", BuildManifest.GLOBAL));
+
+        BuildManifest current = new BuildManifest();
+        current.input("a/A.java", "1");
+        current.input(BuildManifest.GLOBAL, "2");
+
+        assert previous.isUpToDate("api/a.A.html", current);
+    }
+
+    @Test
+    void changedInput() {
+        BuildManifest previous = new BuildManifest();
+        previous.input("a/A.java", "1");
+        previous.depend("api/a.A.html", List.of("a/A.java"));
+
+        BuildManifest current = new BuildManifest();
+        current.input("a/A.java", "changed");
+
+        assert !previous.isUpToDate("api/a.A.html", current);
+    }
+
+    @Test
+    void removedInput() {
+        BuildManifest previous = new BuildManifest();
+        previous.input("a/A.java", "1");
+        previous.input("a/B.java", "2");
+        previous.depend("api/a.A.html", List.of("a/A.java", "a/B.java"));
+
+        BuildManifest current = new BuildManifest();
+        current.input("a/A.java", "1");
+
+        assert !previous.isUpToDate("api/a.A.html", current);
+    }
+
+    @Test
+    void unknownPage() {
+        BuildManifest previous = new BuildManifest();
+        previous.depend("api/a.A.html", List.of());
+
+        assert !previous.isUpToDate("api/a.A.html", new BuildManifest());
+        assert !previous.isUpToDate("api/a.B.html", new BuildManifest());
+    }
+
+    @Test
+    void dependencies() {
+        BuildManifest manifest = new BuildManifest();
+        manifest.depend("api/a.A.html", List.of("a/A.java"));
+        manifest.depend("api/a.A.html", List.of(BuildManifest.GLOBAL, "a/A.java"));
+
+        assert manifest.dependencies("api/a.A.html").equals(Set.of("a/A.java", BuildManifest.GLOBAL));
+        assert manifest.dependencies("api/a.B.html").isEmpty();
+        assert manifest.pages().equals(Set.of("api/a.A.html"));
+    }
+
+    @Test
+    void derivedInput() {
+        BuildManifest manifest = new BuildManifest();
+        manifest.input("same", List.of("a", "b"));
+        manifest.input("other", List.of("a", "b"));
+        manifest.input("joined", List.of("ab"));
+        manifest.input("empty", List.of());
+
+        assert manifest.hash("same").equals(manifest.hash("other"));
+        assert !manifest.hash("same").equals(manifest.hash("joined"));
+        assert manifest.hash("empty").length() == 64;
+    }
+
+    @Test
+    void sourceInputs() {
+        Directory first = sources("first", "a/A.java", "class A {}", "a/readme.txt", "text");
+        Directory second = sources("second", "b/B.java", "class B {}");
+
+        BuildManifest manifest = new BuildManifest();
+        manifest.inputs(List.of(first, second, room.locateDirectory("absent")));
+        assert manifest.inputs().equals(Set.of("a/A.java", "b/B.java"));
+
+        BuildManifest same = new BuildManifest();
+        same.inputs(List.of(sources("copy", "a/A.java", "class A {}")));
+        assert same.hash("a/A.java").equals(manifest.hash("a/A.java"));
+
+        BuildManifest changed = new BuildManifest();
+        changed.inputs(List.of(sources("changed", "a/A.java", "class A { int a; }")));
+        assert !changed.hash("a/A.java").equals(manifest.hash("a/A.java"));
+    }
+
+    @Test
+    void sourceInputsInMultipleDirectories() {
+        Directory first = sources("multipleFirst", "a/A.java", "class A {}");
+        Directory second = sources("multipleSecond", "a/A.java", "class A2 {}");
+
+        BuildManifest one = new BuildManifest();
+        one.inputs(List.of(first));
+
+        BuildManifest both = new BuildManifest();
+        both.inputs(List.of(first, second));
+
+        assert both.inputs().equals(Set.of("a/A.java"));
+        assert !both.hash("a/A.java").equals(one.hash("a/A.java"));
+    }
+
+    @Test
+    void storeAndLoad() {
+        Directory output = room.locateDirectory("storeAndLoad");
+        BuildManifest manifest = new BuildManifest();
+        manifest.input("a/A.java", "1");
+        manifest.input(BuildManifest.GLOBAL, "2");
+        manifest.depend("api/a.A.html", List.of("a/A.java", BuildManifest.GLOBAL));
+        manifest.depend("index.html", List.of());
+        manifest.store(output);
+
+        BuildManifest loaded = BuildManifest.load(output);
+        assert loaded.inputs().equals(manifest.inputs());
+        assert loaded.hash("a/A.java").equals("1");
+        assert loaded.hash(BuildManifest.GLOBAL).equals("2");
+        assert loaded.pages().equals(Set.of("api/a.A.html", "index.html"));
+        assert loaded.dependencies("api/a.A.html").equals(Set.of("a/A.java", BuildManifest.GLOBAL));
+        assert loaded.dependencies("index.html").isEmpty();
+        assert loaded.isUpToDate("api/a.A.html", manifest);
+    }
+
+    @Test
+    void loadAbsent() {
+        BuildManifest loaded = BuildManifest.load(room.locateDirectory("loadAbsent"));
+        assert loaded.inputs().isEmpty();
+        assert loaded.pages().isEmpty();
+    }
+
+    @Test
+    void loadBroken() throws IOException {
+        Directory output = room.locateDirectory("loadBroken");
+        Path file = output.asJavaPath().resolve(BuildManifest.NAME);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "I\tonly-key\nunknown line\nP\tindex.html\tglobal\n");
+
+        BuildManifest loaded = BuildManifest.load(output);
+        assert loaded.inputs().isEmpty();
+        assert loaded.dependencies("index.html").equals(Set.of(BuildManifest.GLOBAL));
+    }
+
+    @Test
+    void quote() {
+        assert BuildManifest.quote("text").equals("\"text\"");
+        assert BuildManifest.quote("say \"hi\"").equals("\"say \\\"hi\\\"\"");
+        assert BuildManifest.quote("a\\b").equals("\"a\\\\b\"");
+        assert BuildManifest.quote("line\nbreak\ttab").equals("\"line\\u000abreak\\u0009tab\"");
+        assert BuildManifest.quote("日本語</script>").equals("\"日本語</script>\"");
+    }
+
+    /**
+     * Create the source directory with the specified files.
+     *
+     * @param name The directory name.
+     * @param files The pairs of the relative path and the content.
+     * @return The created directory.
+     */
+    private Directory sources(String name, String... files) {
+        Directory directory = room.locateDirectory(name);
+        try {
+            for (int i = 0; i < files.length; i += 2) {
+                Path file = directory.asJavaPath().resolve(files[i]);
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, files[i + 1]);
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return directory;
+    }
+}
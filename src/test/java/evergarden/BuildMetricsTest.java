@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+class BuildMetricsTest {
+
+    @Test
+    void bind() {
+        BuildMetrics metrics = new BuildMetrics();
+        BuildMetrics.CURRENT.set(metrics);
+        try {
+            CompletableFuture.supplyAsync(BuildMetrics.bind(() -> {
+                BuildMetrics.count("bound", 1);
+                return null;
+            })).join();
+
+            assert metrics.summary().contains(" bound=1");
+        } finally {
+            BuildMetrics.CURRENT.remove();
+        }
+    }
+
+    @Test
+    void unbound() {
+        BuildMetrics metrics = new BuildMetrics();
+        BuildMetrics.CURRENT.set(metrics);
+        try {
+            CompletableFuture.runAsync(() -> BuildMetrics.count("unbound", 1)).join();
+
+            assert !metrics.summary().contains("unbound");
+        } finally {
+            BuildMetrics.CURRENT.remove();
+        }
+    }
+
+    @Test
+    void bindRestoresThread() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            BuildMetrics.CURRENT.set(new BuildMetrics());
+            executor.submit(BuildMetrics.bind(() -> true)::get).get();
+            BuildMetrics.CURRENT.remove();
+
+            // the pooled thread doesn't keep the metrics of the finished build
+            assert executor.submit(() -> BuildMetrics.CURRENT.get() == null).get();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            BuildMetrics.CURRENT.remove();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void bindWithoutBuild() {
+        assert BuildMetrics.CURRENT.get() == null;
+
+        // nothing is recorded, and nothing fails
+        assert CompletableFuture.supplyAsync(BuildMetrics.bind(() -> {
+            BuildMetrics.count("none", 1);
+            return "done";
+        })).join().equals("done");
+    }
+}
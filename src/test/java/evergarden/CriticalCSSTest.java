@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import evergarden.design.EvergardenDesignScheme;
+import kiss.I;
+import stylist.StyleDeclarable;
+import stylist.Stylist;
+
+class CriticalCSSTest {
+
+    @Test
+    void usedClass() {
+        CriticalCSS css = new CriticalCSS(".used {color: red} .unused {color: blue}", UnaryOperator.identity());
+
+        String inlined = inline(css, "<div class='used'/>");
+        assert inlined.contains(".used");
+        assert !inlined.contains(".unused");
+    }
+
+    @Test
+    void multipleClasses() {
+        CriticalCSS css = new CriticalCSS(".a.b {color: red}", UnaryOperator.identity());
+
+        assert inline(css, "<div class='a'/>").isEmpty();
+        assert inline(css, "<div class='a b'/>").contains(".a.b");
+    }
+
+    @Test
+    void selectorList() {
+        CriticalCSS css = new CriticalCSS(".a, .b {color: red}", UnaryOperator.identity());
+
+        assert inline(css, "<div class='b'/>").contains(".a, .b");
+        assert inline(css, "<div class='c'/>").isEmpty();
+    }
+
+    @Test
+    void elementSelector() {
+        CriticalCSS css = new CriticalCSS("body {margin: 0} a:hover {color: red}", UnaryOperator.identity());
+
+        String inlined = inline(css, "<div/>");
+        assert inlined.contains("body");
+        assert inlined.contains("a:hover");
+    }
+
+    @Test
+    void not() {
+        CriticalCSS css = new CriticalCSS(".item:not(.hidden) {display: block}", UnaryOperator.identity());
+
+        assert inline(css, "<div class='item'/>").contains(".item:not(.hidden)");
+        assert inline(css, "<div class='hidden'/>").isEmpty();
+    }
+
+    @Test
+    void is() {
+        CriticalCSS css = new CriticalCSS(".x :is(.a, .b) {color: red}", UnaryOperator.identity());
+
+        assert inline(css, "<div class='x'/>").contains(".x :is(.a, .b)");
+        assert inline(css, "<div class='a'/>").isEmpty();
+    }
+
+    @Test
+    void whereAndHas() {
+        CriticalCSS css = new CriticalCSS(":where(.a) {color: red} .x:has(> .y) {color: blue}", UnaryOperator.identity());
+
+        String inlined = inline(css, "<div class='x'/>");
+        assert inlined.contains(":where(.a)");
+        assert inlined.contains(".x:has(> .y)");
+    }
+
+    @Test
+    void attribute() {
+        CriticalCSS css = new CriticalCSS("a[href$='.pdf'] {color: red}", UnaryOperator.identity());
+
+        assert inline(css, "<div/>").contains("a[href$='.pdf']");
+    }
+
+    @Test
+    void media() {
+        CriticalCSS css = new CriticalCSS("@media (max-width: 800px) { .a {color: red} .b {color: blue} }", UnaryOperator.identity());
+
+        String inlined = inline(css, "<div class='a'/>");
+        assert inlined.startsWith("@media (max-width: 800px) {");
+        assert inlined.contains(".a");
+        assert !inlined.contains(".b");
+    }
+
+    @Test
+    void mediaWithoutUsedRule() {
+        CriticalCSS css = new CriticalCSS("@media (max-width: 800px) { .a {color: red} }", UnaryOperator.identity());
+
+        assert inline(css, "<div class='b'/>").isEmpty();
+    }
+
+    @Test
+    void nestedAtRule() {
+        CriticalCSS css = new CriticalCSS("@supports (display: grid) { @media print { .a {display: grid} .b {display: grid} } }", UnaryOperator
+                .identity());
+
+        String inlined = inline(css, "<div class='a'/>");
+        assert inlined.contains("@supports (display: grid) {");
+        assert inlined.contains("@media print {");
+        assert inlined.contains(".a");
+        assert !inlined.contains(".b");
+    }
+
+    @Test
+    void atRule() {
+        CriticalCSS css = new CriticalCSS("@import url(\"base.css\"); @font-face {font-family: Inter; src: url(\"a.woff2\")}", UnaryOperator
+                .identity());
+
+        String inlined = inline(css, "<div/>");
+        assert inlined.contains("@import url(\"base.css\");");
+        assert inlined.contains("@font-face");
+    }
+
+    @Test
+    void comment() {
+        CriticalCSS css = new CriticalCSS("/* .a {color: red} */ .b {color: blue}", UnaryOperator.identity());
+
+        assert inline(css, "<div class='a'/>").isEmpty();
+        assert inline(css, "<div class='b'/>").equals(".b {color: blue}\n");
+    }
+
+    @Test
+    void string() {
+        CriticalCSS css = new CriticalCSS(".a::before {content: \"} .b {\"} .c {color: red}", UnaryOperator.identity());
+
+        String inlined = inline(css, "<div class='a'/>");
+        assert inlined.contains("content: \"} .b {\"");
+        assert !inlined.contains(".c");
+    }
+
+    @Test
+    void script() {
+        CriticalCSS css = new CriticalCSS(".tree .show {display: block} .closed {display: none}", UnaryOperator.identity());
+
+        String inlined = inline(css, "<div/>");
+        assert inlined.contains(".tree .show");
+        assert !inlined.contains(".closed");
+    }
+
+    @Test
+    void highlight() {
+        CriticalCSS css = new CriticalCSS(".hljs .hljs-keyword {color: red} .hljs-title.class_ {color: blue} .hljs-unknown {color: green}", UnaryOperator
+                .identity());
+
+        String inlined = inline(css, "<div/>");
+        assert inlined.contains(".hljs .hljs-keyword");
+        assert inlined.contains(".hljs-title.class_");
+        assert !inlined.contains(".hljs-unknown");
+    }
+
+    @Test
+    void format() {
+        CriticalCSS css = new CriticalCSS(".a {color: red}", String::toUpperCase);
+
+        assert inline(css, "<div class='a'/>").equals(".A {COLOR: RED}\n");
+    }
+
+    @Test
+    void prune() {
+        CriticalCSS css = new CriticalCSS(".a {color: red} .b {color: blue} .c {color: green}", UnaryOperator.identity());
+        inline(css, "<div class='a'/>");
+        inline(css, "<div class='b'/>");
+
+        String pruned = css.prune();
+        assert pruned.contains(".a");
+        assert pruned.contains(".b");
+        assert !pruned.contains(".c");
+    }
+
+    @Test
+    void pruneIncomplete() {
+        CriticalCSS css = new CriticalCSS(".a {color: red} .b {color: blue}", UnaryOperator.identity());
+        inline(css, "<div class='a'/>");
+        css.incomplete();
+
+        assert css.prune().equals(css.all());
+        assert css.all().contains(".b");
+    }
+
+    @Test
+    void pruneMainCSS() {
+        I.load(VioletEvergarden.class);
+        String main = Stylist.pretty()
+                .importNormalizeStyle()
+                .scheme(EvergardenDesignScheme.class)
+                .styles(I.findAs(StyleDeclarable.class))
+                .format();
+
+        CriticalCSS css = new CriticalCSS(main, UnaryOperator.identity());
+        inline(css, "<html><body><article><pre class='lang-java'>int i;</pre></article></body></html>");
+
+        String full = css.all();
+        String pruned = css.prune();
+
+        // the generated classes of the page layouts are not used, the scripted ones are kept
+        assert pruned.length() < full.length() * 3 / 4;
+        assert pruned.contains(".hits");
+        assert pruned.contains(".tree");
+        assert pruned.contains(".hljs-comment");
+        assert pruned.contains(".Interface");
+    }
+
+    /**
+     * Compute the critical styles of the specified page.
+     *
+     * @param css The global stylesheet.
+     * @param html The page.
+     * @return The critical styles.
+     */
+    private String inline(CriticalCSS css, String html) {
+        return css.inline(List.of(I.xml(html)));
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import antibug.CleanRoom;
+import evergarden.DeployManifest.Delta;
+import kiss.I;
+
+class DeployManifestTest {
+
+    private static final CleanRoom room = new CleanRoom(true);
+
+    @Test
+    void record() {
+        DeployManifest manifest = new DeployManifest();
+        manifest.record("a.html", bytes("a"));
+        manifest.record("b.html", bytes("a"));
+
+        assert manifest.hash("a.html").equals(manifest.hash("b.html"));
+        assert manifest.hash("a.html").length() == 64;
+        assert manifest.hash("c.html") == null;
+        assert manifest.paths().equals(Set.of("a.html", "b.html"));
+    }
+
+    @Test
+    void inheritFromPrevious() {
+        DeployManifest previous = new DeployManifest();
+        previous.record("a.html", bytes("old"));
+
+        DeployManifest current = new DeployManifest();
+        current.inherit("a.html", previous, file("inheritFromPrevious", "a.html", "new"));
+
+        assert current.hash("a.html").equals(previous.hash("a.html"));
+    }
+
+    @Test
+    void inheritFromFile() {
+        DeployManifest current = new DeployManifest();
+        current.inherit("a.html", new DeployManifest(), file("inheritFromFile", "a.html", "new"));
+
+        DeployManifest expected = new DeployManifest();
+        expected.record("a.html", bytes("new"));
+        assert current.hash("a.html").equals(expected.hash("a.html"));
+    }
+
+    @Test
+    void inheritRecorded() {
+        DeployManifest previous = new DeployManifest();
+        previous.record("a.html", bytes("old"));
+
+        DeployManifest current = new DeployManifest();
+        current.record("a.html", bytes("new"));
+        current.inherit("a.html", previous, file("inheritRecorded", "a.html", "old"));
+
+        assert !current.hash("a.html").equals(previous.hash("a.html"));
+    }
+
+    @Test
+    void inheritAbsent() {
+        DeployManifest current = new DeployManifest();
+        current.inherit("a.html", new DeployManifest(), room.locateDirectory("inheritAbsent").asJavaPath().resolve("a.html"));
+
+        assert current.paths().isEmpty();
+    }
+
+    @Test
+    void delta() {
+        DeployManifest previous = new DeployManifest();
+        previous.record("same.html", bytes("same"));
+        previous.record("modified.html", bytes("old"));
+        previous.record("resized.html", bytes("old"));
+        previous.record("deleted.html", bytes("deleted"));
+
+        DeployManifest current = new DeployManifest();
+        current.record("same.html", bytes("same"));
+        current.record("modified.html", bytes("new"));
+        current.record("resized.html", bytes("older"));
+        current.record("added.html", bytes("added"));
+
+        Delta delta = current.delta(previous);
+        assert delta.added().equals(List.of("added.html"));
+        assert delta.modified().equals(List.of("modified.html", "resized.html"));
+        assert delta.deleted().equals(List.of("deleted.html"));
+    }
+
+    @Test
+    void deltaFromEmpty() {
+        DeployManifest current = new DeployManifest();
+        current.record("b.html", bytes("b"));
+        current.record("a.html", bytes("a"));
+
+        Delta delta = current.delta(new DeployManifest());
+        assert delta.added().equals(List.of("a.html", "b.html"));
+        assert delta.modified().isEmpty();
+        assert delta.deleted().isEmpty();
+    }
+
+    @Test
+    void deltaWithKeptFile() {
+        Path root = room.locateDirectory("deltaWithKeptFile").asJavaPath();
+        DeployManifest previous = new DeployManifest();
+        previous.record("index.html", bytes("guarded"));
+        previous.record("main.js", bytes("old"));
+
+        // the guarded file is not produced by this build, but it is still in the output
+        DeployManifest current = new DeployManifest();
+        current.record("main.js", bytes("new"));
+        current.inherit("index.html", previous, file("deltaWithKeptFile", "index.html", "guarded"));
+        current.inherit("removed.html", previous, root.resolve("removed.html"));
+
+        Delta delta = current.delta(previous);
+        assert delta.added().isEmpty();
+        assert delta.modified().equals(List.of("main.js"));
+        assert delta.deleted().isEmpty();
+    }
+
+    @Test
+    void storeAndLoad() {
+        Path file = room.locateDirectory("storeAndLoad").asJavaPath().resolve("deploy.tsv");
+        DeployManifest manifest = new DeployManifest();
+        manifest.record("index.html", bytes("index"));
+        manifest.record("api/日本語.html", bytes("page"));
+        manifest.store(file);
+
+        DeployManifest loaded = DeployManifest.load(file);
+        assert loaded.paths().equals(manifest.paths());
+        assert loaded.hash("index.html").equals(manifest.hash("index.html"));
+        assert loaded.hash("api/日本語.html").equals(manifest.hash("api/日本語.html"));
+        assert manifest.delta(loaded).added().isEmpty();
+        assert manifest.delta(loaded).modified().isEmpty();
+        assert manifest.delta(loaded).deleted().isEmpty();
+    }
+
+    @Test
+    void loadAbsent() {
+        assert DeployManifest.load(room.locateDirectory("loadAbsent").asJavaPath().resolve("deploy.tsv")) == null;
+    }
+
+    @Test
+    void loadBroken() {
+        assert DeployManifest.load(file("loadBroken", "deploy.tsv", "index.html\tunknown\thash\n")) == null;
+
+        DeployManifest loaded = DeployManifest.load(file("loadBroken", "partial.tsv", "index.html\t5\thash\nunknown line\n"));
+        assert loaded.paths().equals(Set.of("index.html"));
+        assert loaded.hash("index.html").equals("hash");
+    }
+
+    @Test
+    void scan() {
+        file("scan", "index.html", "index");
+        file("scan", "api/a.html", "a");
+        file("scan", ".build/manifest", "hidden");
+        file("scan", "api/.hidden", "hidden");
+
+        DeployManifest scanned = DeployManifest.scan(room.locateDirectory("scan").asJavaPath());
+        assert scanned.paths().equals(Set.of("index.html", "api/a.html"));
+
+        DeployManifest expected = new DeployManifest();
+        expected.record("index.html", bytes("index"));
+        assert scanned.hash("index.html").equals(expected.hash("index.html"));
+    }
+
+    @Test
+    void scanAbsent() {
+        assert DeployManifest.scan(room.locateDirectory("scanAbsent").asJavaPath().resolve("absent")).paths().isEmpty();
+    }
+
+    @Test
+    void json() {
+        Delta delta = new Delta(List.of("a.html", "b.html"), List.of(), List.of("say \"hi\".html", "a\\b.html"));
+
+        assert delta.toJSON().equals("""
+                {
+                  "added": [
+                    "a.html",
+                    "b.html"
+                  ],
+                  "modified": [],
+                  "deleted": [
+                    "say \\"hi\\".html",
+                    "a\\\\b.html"
+                  ]
+                }
+                """);
+    }
+
+    /**
+     * Encode the specified text.
+     *
+     * @param text The text.
+     * @return The encoded bytes.
+     */
+    private byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create the file with the specified content.
+     *
+     * @param name The directory name.
+     * @param path The relative path of the file.
+     * @param content The content.
+     * @return The created file.
+     */
+    private Path file(String name, String path, String content) {
+        Path file = room.locateDirectory(name).asJavaPath().resolve(path);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return file;
+    }
+}
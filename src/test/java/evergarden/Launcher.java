@@ -11,10 +11,17 @@ package evergarden;
 
 import java.awt.Desktop;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.BindException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpServer;
@@ -28,16 +35,44 @@ public class Launcher {
      * Show the generated document in your browser.
      */
     public final static void launch(Directory output) {
+        launch(path -> output.file(path).text().getBytes(StandardCharsets.UTF_8), () -> modified(output));
+    }
+
+    /**
+     * Show the generated document in the archive in your browser.
+     */
+    public final static void launch(Path archive) {
+        launch(path -> {
+            try (FileSystem system = FileSystems.newFileSystem(archive)) {
+                return Files.readAllBytes(system.getPath(path));
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }, () -> {
+            try {
+                return Files.getLastModifiedTime(archive).toMillis();
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * Show the generated document in your browser.
+     * 
+     * @param reader The reader of the file content.
+     * @param modified The latest modification time of the output.
+     */
+    private static void launch(Function<String, byte[]> reader, LongSupplier modified) {
         try {
-            psychopath.File checker = output.file("index.html");
-            long[] modified = {checker.lastModifiedMilli()};
+            long[] latest = {modified.getAsLong()};
             String prefix = "/application/";
 
             HttpServer server = HttpServer.create(new InetSocketAddress(9321), 0);
             server.createContext("/live", context -> {
-                long time = checker.lastModifiedMilli();
-                if (modified[0] < time) {
-                    modified[0] = time;
+                long time = modified.getAsLong();
+                if (latest[0] < time) {
+                    latest[0] = time;
                     context.sendResponseHeaders(200, 1);
                     I.copy(new ByteArrayInputStream("0".getBytes()), context.getResponseBody(), true);
                 } else {
@@ -45,11 +80,11 @@ public class Launcher {
                 }
             });
             server.createContext(prefix, context -> {
-                psychopath.File file = output.file(context.getRequestURI().getPath().substring(prefix.length()));
-                byte[] body = file.text().getBytes(StandardCharsets.UTF_8);
+                String path = context.getRequestURI().getPath().substring(prefix.length());
+                byte[] body = reader.apply(path);
 
                 Headers headers = context.getResponseHeaders();
-                headers.set("Content-Type", mime(file));
+                headers.set("Content-Type", mime(path));
                 context.sendResponseHeaders(200, body.length);
                 I.copy(new ByteArrayInputStream(body), context.getResponseBody(), true);
             });
@@ -69,18 +104,31 @@ public class Launcher {
         }
     }
 
+    /**
+     * Find the modification time of the marker which the build touches at last when it changes the
+     * output, since the unchanged files are not written again.
+     * 
+     * @param output The output directory.
+     * @return The latest modification time.
+     */
+    private static long modified(Directory output) {
+        return output.file(VioletEvergarden.LIVE).lastModifiedMilli();
+    }
+
     /**
      * Detect mime-type.
      * 
-     * @param file
+     * @param path
      * @return
      */
-    private static String mime(psychopath.File file) {
-        switch (file.extension()) {
+    private static String mime(String path) {
+        switch (path.substring(path.lastIndexOf('.') + 1)) {
         case "css":
             return "text/css";
         case "js":
             return "application/javascript";
+        case "json":
+            return "application/json";
         case "html":
             return "text/html";
         case "svg":
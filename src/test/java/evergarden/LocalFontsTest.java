@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import antibug.CleanRoom;
+import kiss.I;
+import psychopath.Directory;
+
+class LocalFontsTest {
+
+    private static final CleanRoom room = new CleanRoom(true);
+
+    @Test
+    void weight() {
+        Path fonts = fonts("weight", "Inter-Regular.woff2", "Inter-SemiBold.woff2", "Inter-700.woff2", "Inter-LightItalic.woff2");
+        String css = LocalFonts.scan(fonts, List.of("Inter"), this::fail).publish(site("weight"), false);
+
+        assert css.contains("src: url(\"fonts/Inter-Regular.woff2\") format(\"woff2\");\n  font-weight: 400;\n  font-style: normal;");
+        assert css.contains("src: url(\"fonts/Inter-SemiBold.woff2\") format(\"woff2\");\n  font-weight: 600;");
+        assert css.contains("src: url(\"fonts/Inter-700.woff2\") format(\"woff2\");\n  font-weight: 700;");
+        assert css.contains("src: url(\"fonts/Inter-LightItalic.woff2\") format(\"woff2\");\n  font-weight: 300;\n  font-style: italic;");
+    }
+
+    @Test
+    void variable() {
+        Path fonts = fonts("variable", "Inter[wght].woff2");
+        LocalFonts local = LocalFonts.scan(fonts, List.of("Inter"), this::fail);
+
+        String css = local.publish(site("variable"), false);
+        assert css.contains("font-weight: 100 900;");
+        assert local.preloads().equals(List.of("fonts/Inter[wght].woff2"));
+    }
+
+    @Test
+    void familyWithSpace() {
+        Path fonts = fonts("familyWithSpace", "MaterialIcons-Regular.woff2");
+        String css = LocalFonts.scan(fonts, List.of("Material Icons"), this::fail).publish(site("familyWithSpace"), false);
+
+        assert css.contains("font-family: \"Material Icons\";");
+        assert css.contains("font-display: block;");
+    }
+
+    @Test
+    void missing() {
+        Path fonts = fonts("missing", "Inter-Regular.woff2");
+        List<String> missing = new ArrayList();
+        LocalFonts.scan(fonts, List.of("Inter", "Vollkorn"), missing::add);
+
+        assert missing.equals(List.of("Vollkorn"));
+    }
+
+    @Test
+    void withoutWOFF2() {
+        Path fonts = fonts("withoutWOFF2", "Inter-Regular.woff2", "Vollkorn-Regular.ttf", "Vollkorn-Bold.otf");
+        LocalFonts local = LocalFonts.scan(fonts, List.of("Inter", "Vollkorn"), this::fail);
+
+        assert local.withoutWOFF2().equals(List.of("Vollkorn"));
+    }
+
+    @Test
+    void preloadWOFF2() {
+        Path fonts = fonts("preloadWOFF2", "Inter-Bold.woff2", "Inter-Regular.ttf", "Inter-Regular.woff2", "Vollkorn-Regular.woff2");
+        LocalFonts local = LocalFonts.scan(fonts, List.of("Inter", "Vollkorn"), this::fail);
+        local.publish(site("preloadWOFF2"), false);
+
+        assert local.preloads().equals(List.of("fonts/Inter-Regular.woff2"));
+    }
+
+    @Test
+    void preloadOtherFormat() {
+        Path fonts = fonts("preloadOtherFormat", "Inter-Regular.ttf");
+        LocalFonts local = LocalFonts.scan(fonts, List.of("Inter"), this::fail);
+        local.publish(site("preloadOtherFormat"), false);
+
+        assert local.preloads().equals(List.of("fonts/Inter-Regular.ttf"));
+    }
+
+    @Test
+    void subset() throws IOException {
+        Path fonts = fonts("subset", "Inter-Regular.ttf", "Inter-Regular.woff2", "Inter-Bold.otf");
+        Path subsetter = room.locateDirectory("subsetter").asJavaPath().resolve("Subsetter.java");
+        Files.createDirectories(subsetter.getParent());
+        Files.writeString(subsetter, """
+                import java.nio.file.*;
+
+                public class Subsetter {
+                    public static void main(String[] args) throws Exception {
+                        Files.writeString(Path.of(args[2]), Path.of(args[0]).getFileName() + ":" + Files.readString(Path.of(args[1])));
+                    }
+                }
+                """);
+
+        SiteBuilder site = site("subset");
+        LocalFonts local = LocalFonts.scan(fonts, List.of("Inter"), this::fail);
+        String css = local.publish(site, true);
+        assert css.contains("src: url(\"fonts/Inter-Bold.woff2\") format(\"woff2\");");
+        assert css.contains("src: url(\"fonts/Inter-Regular.woff2\") format(\"woff2\");");
+        assert css.indexOf("fonts/Inter-Regular.woff2") == css.lastIndexOf("fonts/Inter-Regular.woff2");
+        assert local.withoutWOFF2().isEmpty();
+        assert local.preloads().equals(List.of("fonts/Inter-Regular.woff2"));
+
+        String java = ProcessHandle.current().info().command().orElseThrow();
+        local.subset(site, "abc", List.of(java, subsetter.toString(), "{font}", "{text}", "{output}"));
+
+        Path output = room.locateDirectory("subset-site").asJavaPath();
+        assert Files.readString(output.resolve("fonts/Inter-Bold.woff2")).equals("Inter-Bold.otf:abc");
+        assert Files.readString(output.resolve("fonts/Inter-Regular.woff2")).startsWith("Inter-Regular.");
+    }
+
+    @Test
+    void subsetFailure() {
+        Path fonts = fonts("subsetFailure", "Inter-Regular.ttf");
+        SiteBuilder site = site("subsetFailure");
+        LocalFonts local = LocalFonts.scan(fonts, List.of("Inter"), this::fail);
+        local.publish(site, true);
+
+        String java = ProcessHandle.current().info().command().orElseThrow();
+        try {
+            local.subset(site, "abc", List.of(java, "-unknown-option"));
+            assert false;
+        } catch (Error e) {
+            assert e.getMessage().startsWith("Fail to subset the font");
+        }
+    }
+
+    /**
+     * Create the font directory with the dummy font files.
+     *
+     * @param name The directory name.
+     * @param files The font file names.
+     * @return The font directory.
+     */
+    private Path fonts(String name, String... files) {
+        Path directory = room.locateDirectory(name).asJavaPath();
+        try {
+            Files.createDirectories(directory);
+            for (String file : files) {
+                Files.writeString(directory.resolve(file), file);
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return directory;
+    }
+
+    /**
+     * Create the output site.
+     *
+     * @param name The test name.
+     * @return The output site.
+     */
+    private SiteBuilder site(String name) {
+        Directory directory = room.locateDirectory(name + "-site");
+        return SiteBuilder.root(directory);
+    }
+
+    /**
+     * Fail the test by the missing family.
+     *
+     * @param family The missing family.
+     */
+    private void fail(String family) {
+        throw new AssertionError("Missing font " + family);
+    }
+}
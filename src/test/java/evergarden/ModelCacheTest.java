@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import antibug.CleanRoom;
+import evergarden.javadoc.ClassInfo;
+import kiss.I;
+import psychopath.Directory;
+import psychopath.Location;
+
+class ModelCacheTest {
+
+    private static final CleanRoom room = new CleanRoom(true);
+
+    @Test
+    void roundTrip() {
+        Directory sources = fixture("api", "fixture/Shape.java", """
+                package fixture;
+
+                /**
+                 * The <b>shape</b>.
+                 */
+                public interface Shape {
+
+                    /**
+                     * Compute the area.
+                     *
+                     * @return The area.
+                     */
+                    double area();
+                }
+                """, "fixture/Circle.java", """
+                package fixture;
+
+                /**
+                 * The circle {@link Shape}.
+                 */
+                public final class Circle implements Shape {
+
+                    /** The radius. */
+                    public final double radius;
+
+                    /**
+                     * @param radius The radius.
+                     */
+                    public Circle(double radius) {
+                        this.radius = radius;
+                    }
+
+                    /**
+                     * {@inheritDoc}
+                     */
+                    @Override
+                    public double area() {
+                        return Math.PI * radius * radius;
+                    }
+                }
+                """);
+        Directory documents = fixture("doc", "fixture/FixtureManual.java", """
+                package fixture;
+
+                public class FixtureManual {
+
+                    /**
+                     * How to use {@link Shape}.
+                     */
+                    public class Introduction {
+
+                        /**
+                         * Create the circle.
+                         */
+                        public class Circles {
+                        }
+                    }
+                }
+                """, "fixture/ShapeTest.java", """
+                package fixture;
+
+                class ShapeTest {
+
+                    /**
+                     * @see Shape#area()
+                     */
+                    void area() {
+                        assert new Circle(1).area() == Math.PI;
+                    }
+                }
+                """);
+        Directory output = room.locateDirectory("output");
+
+        List<String> scanning = new ArrayList();
+        Letter scanned = build(output, sources, documents, scanning);
+        Map<String, String> pages = pages(output);
+        assert Files.isRegularFile(output.asJavaPath().resolve(ModelCache.NAME));
+        assert scanning.stream().noneMatch(message -> message.startsWith("Restored"));
+        assert pages.containsKey("api/fixture.Circle.html");
+        assert pages.containsKey("doc/fixture.FixtureManual.Introduction.html");
+
+        List<String> restoring = new ArrayList();
+        Letter restored = build(output, sources, documents, restoring);
+        assert restoring.stream().anyMatch(message -> message.startsWith("Restored"));
+
+        // same model
+        assert model(restored).equals(model(scanned));
+        assert restored.packages.equals(scanned.packages);
+        assert restored.docs.equals(scanned.docs);
+        assert restored.doodles().size() == 1;
+
+        // same pages
+        assert pages(output).equals(pages);
+    }
+
+    @Test
+    void keyBySource() throws IOException {
+        Directory sources = fixture("keyBySource", "fixture/Key.java", "package fixture; public class Key {}");
+        String key = key(sources, List.of());
+        assert key.equals(key(sources, List.of()));
+
+        Files.writeString(sources.asJavaPath().resolve("fixture/Key.java"), "package fixture; public class Key { public int value; }");
+        assert !key.equals(key(sources, List.of()));
+    }
+
+    @Test
+    void keyByAddedSource() throws IOException {
+        Directory sources = fixture("keyByAddedSource", "fixture/Key.java", "package fixture; public class Key {}");
+        String key = key(sources, List.of());
+
+        Files.writeString(sources.asJavaPath().resolve("fixture/Added.java"), "package fixture; public class Added {}");
+        assert !key.equals(key(sources, List.of()));
+    }
+
+    @Test
+    void keyByClasspath() throws IOException {
+        Directory sources = fixture("keyByClasspathSource", "fixture/Key.java", "package fixture; public class Key {}");
+        Directory classpath = fixture("keyByClasspath", "lib/Library.class", "version 1");
+        String key = key(sources, List.of(classpath));
+        assert key.equals(key(sources, List.of(classpath)));
+        assert !key.equals(key(sources, List.of()));
+
+        Files.writeString(classpath.asJavaPath().resolve("lib/Library.class"), "version 10");
+        assert !key.equals(key(sources, List.of(classpath)));
+    }
+
+    @Test
+    void keyByEncodingAndExternals() {
+        Directory sources = fixture("keyByEncoding", "fixture/Key.java", "package fixture; public class Key {}");
+        String key = key(sources, List.of());
+
+        assert !key.equals(ModelCache.key(List.of(sources), List.of(), List.of(), Map.of(), StandardCharsets.ISO_8859_1));
+        assert !key.equals(ModelCache.key(List.of(sources), List.of(), List.of(), Map
+                .of("java.lang", "https://docs.oracle.com/en/java/javase/24/docs/api/"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void loadWithDifferentKey() {
+        Directory sources = fixture("loadWithDifferentKey", "fixture/Key.java", "package fixture; public class Key {}");
+        Directory output = room.locateDirectory("loadWithDifferentKeyOutput");
+        Directory documents = fixture("loadWithDifferentKeyDocument", "fixture/KeyTest.java", "package fixture; class KeyTest {}");
+        Letter scanned = build(output, sources, documents, new ArrayList());
+        int types = scanned.types.size();
+
+        List<ClassInfo> docs = new ArrayList();
+        assert !ModelCache.load(output, "unknown", scanned, docs);
+        assert scanned.types.size() == types;
+        assert docs.isEmpty();
+    }
+
+    /**
+     * Build the site with the model cache.
+     *
+     * @param output The output directory.
+     * @param sources The source directory.
+     * @param documents The document directory.
+     * @param messages The reported messages.
+     * @return The built letter.
+     */
+    private Letter build(Directory output, Directory sources, Directory documents, List<String> messages) {
+        return Violet.with.address(output)
+                .title("test")
+                .sources(sources)
+                .documents(documents)
+                .listener(message -> messages.add(message.getMessage(Locale.ROOT)))
+                .useModelCache()
+                .write();
+    }
+
+    /**
+     * Compute the model key of the specified inputs.
+     *
+     * @param sources The source directory.
+     * @param classpath The classpath.
+     * @return The model key.
+     */
+    private String key(Directory sources, List<Location> classpath) {
+        return ModelCache.key(List.of(sources), List.of(), classpath, Map.of(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create the directory with the specified files.
+     *
+     * @param name The directory name.
+     * @param files The pairs of the relative path and the content.
+     * @return The created directory.
+     */
+    private Directory fixture(String name, String... files) {
+        Directory directory = room.locateDirectory(name);
+        try {
+            for (int i = 0; i < files.length; i += 2) {
+                Path file = directory.asJavaPath().resolve(files[i]);
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, files[i + 1]);
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return directory;
+    }
+
+    /**
+     * Describe the scanned types and their comments.
+     *
+     * @param letter The scanned letter.
+     * @return The description.
+     */
+    private List<String> model(Letter letter) {
+        List<String> values = new ArrayList();
+        for (ClassInfo type : letter.types) {
+            values.add(type.id() + " " + type.contents());
+            type.fields().forEach(field -> values.add(field.id() + " " + field.contents()));
+            type.constructors().forEach(constructor -> values.add(constructor.id() + " " + constructor.contents()));
+            type.methods().forEach(method -> values.add(method.id() + " " + method.contents()));
+        }
+        for (Doodle doodle : letter.doodles()) {
+            values.add(doodle.classID() + "#" + doodle.methodID() + " " + doodle.code() + " " + doodle.comment());
+        }
+        return values;
+    }
+
+    /**
+     * Read all pages and fragments in the output.
+     *
+     * @param output The output directory.
+     * @return The contents by the relative path.
+     */
+    private Map<String, String> pages(Directory output) {
+        Path root = output.asJavaPath();
+        Map<String, String> pages = new TreeMap();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".html") || path.toString().endsWith(".json")).toList()) {
+                pages.put(root.relativize(file).toString().replace('\\', '/'), Files.readString(file));
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import evergarden.PageBudget.Weight;
+import kiss.I;
+
+class PageBudgetTest {
+
+    @Test
+    void unlimited() {
+        assert new PageBudget().check(new Weight(Long.MAX_VALUE, Integer.MAX_VALUE, 0, 0, 0)).isEmpty();
+    }
+
+    @Test
+    void withinBudget() {
+        PageBudget budget = new PageBudget().bytes(100).nodes(10).codes(2).requests(3).externals(1);
+
+        assert budget.check(new Weight(100, 10, 2, 3, 1)).isEmpty();
+    }
+
+    @Test
+    void exceeded() {
+        PageBudget budget = new PageBudget().bytes(100).nodes(10).codes(2).requests(3).externals(1);
+
+        assert budget.check(new Weight(101, 10, 2, 3, 1)).equals(List.of("bytes 101 > 100"));
+        assert budget.check(new Weight(100, 11, 2, 3, 1)).equals(List.of("nodes 11 > 10"));
+        assert budget.check(new Weight(100, 10, 3, 3, 1)).equals(List.of("codes 3 > 2"));
+        assert budget.check(new Weight(100, 10, 2, 4, 1)).equals(List.of("requests 4 > 3"));
+        assert budget.check(new Weight(100, 10, 2, 3, 2)).equals(List.of("externals 2 > 1"));
+    }
+
+    @Test
+    void exceededAll() {
+        PageBudget budget = new PageBudget().bytes(1).nodes(1).codes(1).requests(1).externals(1);
+
+        assert budget.check(new Weight(2, 2, 2, 2, 2)).size() == 5;
+    }
+
+    @Test
+    void strict() {
+        assert !new PageBudget().isStrict();
+        assert new PageBudget().strict().isStrict();
+    }
+
+    @Test
+    void weighNodes() {
+        Weight weight = weigh("<html><body><p>text</p><p><b>bold</b></p></body></html>");
+
+        assert weight.nodes() == 5;
+        assert weight.codes() == 0;
+        assert weight.requests() == 0;
+    }
+
+    @Test
+    void weighCodes() {
+        Weight weight = weigh("<html><body><pre>a</pre><pre><code>b</code></pre></body></html>");
+
+        assert weight.codes() == 2;
+    }
+
+    @Test
+    void weighRequests() {
+        Weight weight = weigh("""
+                <html>
+                    <head>
+                        <link rel="stylesheet" href="main.css"/>
+                        <link rel="preload" href="fonts/Inter.woff2"/>
+                        <link rel="icon" href="favicon.ico"/>
+                        <link rel="preconnect" href="https://fonts.gstatic.com"/>
+                        <script src="main.js"></script>
+                        <script>inline()</script>
+                    </head>
+                    <body>
+                        <img src="logo.png"/>
+                        <img src="data:image/png;base64,AAAA"/>
+                    </body>
+                </html>
+                """);
+
+        assert weight.requests() == 5;
+        assert weight.externals() == 0;
+    }
+
+    @Test
+    void weighSameResource() {
+        Weight weight = weigh("""
+                <html>
+                    <body>
+                        <svg><use href="main.svg#home"/></svg>
+                        <svg><use href="main.svg#search"/></svg>
+                        <svg><use href="#local"/></svg>
+                    </body>
+                </html>
+                """);
+
+        assert weight.requests() == 1;
+    }
+
+    @Test
+    void weighExternals() {
+        Weight weight = weigh("""
+                <html>
+                    <head>
+                        <link rel="stylesheet" href="https://fonts.googleapis.com/css2?family=Inter"/>
+                        <script src="//cdn.jsdelivr.net/npm/library.js"></script>
+                        <script src="http://example.com/script.js"></script>
+                        <script src="main.js"></script>
+                    </head>
+                </html>
+                """);
+
+        assert weight.requests() == 4;
+        assert weight.externals() == 3;
+    }
+
+    @Test
+    void weighBytes() {
+        assert weigh("<html/>", 1234).bytes() == 1234;
+    }
+
+    /**
+     * Measure the weight of the specified page.
+     *
+     * @param html The page.
+     * @return The weight.
+     */
+    private Weight weigh(String html) {
+        return weigh(html, html.length());
+    }
+
+    /**
+     * Measure the weight of the specified page.
+     *
+     * @param html The page.
+     * @param bytes The serialized size.
+     * @return The weight.
+     */
+    private Weight weigh(String html, long bytes) {
+        return Weight.of(List.of(I.xml(html)), bytes);
+    }
+}
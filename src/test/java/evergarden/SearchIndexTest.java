@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import antibug.CleanRoom;
+import kiss.I;
+import psychopath.Directory;
+
+class SearchIndexTest {
+
+    private static final CleanRoom room = new CleanRoom(true);
+
+    @Test
+    void tokenizeWords() {
+        assert SearchIndex.tokenize("Compute the area.").equals(List.of("compute", "the", "area"));
+        assert SearchIndex.tokenize("List<String>#add(int, E)").equals(List.of("list", "string", "add", "int"));
+    }
+
+    @Test
+    void tokenizeShortWord() {
+        assert SearchIndex.tokenize("a b cd").equals(List.of("cd"));
+        assert SearchIndex.tokenize("").isEmpty();
+    }
+
+    @Test
+    void tokenizeCamelCase() {
+        assert SearchIndex.tokenize("getTypeName").equals(List.of("gettypename", "get", "type", "name"));
+        assert SearchIndex.tokenize("HTMLParser").equals(List.of("htmlparser", "html", "parser"));
+        assert SearchIndex.tokenize("toX").equals(List.of("tox", "to"));
+    }
+
+    @Test
+    void tokenizeUnderscore() {
+        assert SearchIndex.tokenize("MAX_VALUE").equals(List.of("max_value", "max", "value"));
+    }
+
+    @Test
+    void tokenizeNonASCII() {
+        assert SearchIndex.tokenize("日本語のテキスト Élan").equals(List.of("日本語のテキスト", "élan"));
+    }
+
+    @Test
+    void chunk() {
+        assert SearchIndex.chunk("area").equals("ar");
+        assert SearchIndex.chunk("x1").equals("x1");
+        assert SearchIndex.chunk("a_b").equals("a_");
+        assert SearchIndex.chunk("日本語").equals("__");
+        assert SearchIndex.chunk("élan").equals("_l");
+    }
+
+    @Test
+    void build() {
+        SearchIndex index = new SearchIndex();
+        int first = index.entry("Say \"hi\"", "doc/a.html#x", "Document");
+        index.add(first, "getName", 8);
+        int second = index.entry("a\\b", "api/b.html", "Class");
+        index.add(second, "get value", 1);
+        index.add(second, "日本語", 1);
+        index.add(second, null, 1);
+
+        Directory output = room.locateDirectory("build");
+        assert index.build(SiteBuilder.root(output)).equals("search/index.json");
+
+        assert read(output, "search/index.json")
+                .equals("{\"docs\":\"search/docs.json\",\"chunks\":{\"__\":\"search/__.json\",\"ge\":\"search/ge.json\",\"na\":\"search/na.json\",\"va\":\"search/va.json\"}}");
+        assert read(output, "search/docs.json").equals("[[\"Say \\\"hi\\\"\",\"doc/a.html#x\",\"Document\"],[\"a\\\\b\",\"api/b.html\",\"Class\"]]");
+        assert read(output, "search/ge.json").equals("{\"get\":[0,8,1,1],\"getname\":[0,8]}");
+        assert read(output, "search/na.json").equals("{\"name\":[0,8]}");
+        assert read(output, "search/va.json").equals("{\"value\":[1,1]}");
+        assert read(output, "search/__.json").equals("{\"日本語\":[1,1]}");
+    }
+
+    @Test
+    void buildScore() {
+        SearchIndex index = new SearchIndex();
+        int entry = index.entry("Shape", "api/Shape.html", "Interface");
+        index.add(entry, "Shape", 8);
+        index.add(entry, "The shape.", 1);
+
+        Directory output = room.locateDirectory("buildScore");
+        index.build(SiteBuilder.root(output));
+
+        assert read(output, "search/sh.json").equals("{\"shape\":[0,9]}");
+        assert read(output, "search/th.json").equals("{\"the\":[0,1]}");
+    }
+
+    @Test
+    void buildEmpty() {
+        Directory output = room.locateDirectory("buildEmpty");
+        new SearchIndex().build(SiteBuilder.root(output));
+
+        assert read(output, "search/index.json").equals("{\"docs\":\"search/docs.json\",\"chunks\":{}}");
+        assert read(output, "search/docs.json").equals("[]");
+    }
+
+    /**
+     * Read the built file.
+     *
+     * @param output The output directory.
+     * @param path The relative path of the file.
+     * @return The content.
+     */
+    private String read(Directory output, String path) {
+        try {
+            return Files.readString(output.asJavaPath().resolve(path));
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+}
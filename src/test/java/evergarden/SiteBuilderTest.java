@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2025 The EVERGARDEN Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package evergarden;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import antibug.CleanRoom;
+import evergarden.web.HTML;
+import kiss.I;
+import psychopath.Directory;
+
+class SiteBuilderTest {
+
+    private static final CleanRoom room = new CleanRoom(true);
+
+    /** The old modification time to detect the rewrite. */
+    private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+    @Test
+    void syncUnchanged() {
+        Directory output = room.locateDirectory("syncUnchanged");
+        SiteBuilder previous = SiteBuilder.root(output).sync();
+        previous.build("same.js", "same");
+        previous.build("changed.js", "old");
+        touch(output, "same.js");
+        touch(output, "changed.js");
+
+        SiteBuilder site = SiteBuilder.root(output).sync();
+        site.build("same.js", "same");
+        site.build("changed.js", "new");
+
+        assert modified(output, "same.js").equals(OLD);
+        assert !modified(output, "changed.js").equals(OLD);
+        assert read(output, "changed.js").equals("new");
+        assert site.changes() == 1;
+    }
+
+    @Test
+    void sweep() {
+        Directory output = room.locateDirectory("sweep");
+        write(output, "stale.html", "stale");
+        write(output, "api/stale.html", "stale");
+        write(output, "index.html", "guarded");
+        write(output, ".nojekyll", "");
+        write(output, ".evergarden.model", "model");
+
+        SiteBuilder site = SiteBuilder.root(output).sync().guard("index.html");
+        site.build("page.html", "page");
+
+        assert site.sweep() == 2;
+        assert !Files.exists(path(output, "stale.html"));
+        assert !Files.exists(path(output, "api/stale.html"));
+        assert read(output, "index.html").equals("guarded");
+        assert Files.exists(path(output, ".nojekyll"));
+        assert read(output, ".evergarden.model").equals("model");
+        assert read(output, "page.html").equals("page");
+    }
+
+    @Test
+    void sweepWithoutSync() {
+        Directory output = room.locateDirectory("sweepWithoutSync");
+        SiteBuilder site = SiteBuilder.root(output);
+        site.build("page.html", "page");
+
+        assert site.sweep() == 0;
+    }
+
+    @Test
+    void compress() throws IOException {
+        Directory output = room.locateDirectory("compress");
+        String text = "function main() { return 'evergarden'; }\n".repeat(50);
+
+        SiteBuilder site = SiteBuilder.root(output).compress(100);
+        site.build("main.js", text);
+        site.build("tiny.js", "tiny");
+        site.build("image.png", "binary");
+
+        assert site.finish() == 1;
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(path(output, "main.js.gz")))) {
+            assert new String(input.readAllBytes(), StandardCharsets.UTF_8).equals(text);
+        }
+        assert !Files.exists(path(output, "tiny.js.gz"));
+        assert !Files.exists(path(output, "image.png.gz"));
+    }
+
+    @Test
+    void fingerprint() {
+        Directory output = room.locateDirectory("fingerprint");
+        SiteBuilder site = SiteBuilder.root(output).fingerprint();
+        String mimic = site.build("mimic.js", "export const Mimic = 1");
+        String svg = site.build("main.svg", "<svg/>");
+        String main = site.build("main.js", "import { Mimic } from \"./mimic.js\"".replace("\"./mimic.js\"", "\"./" + site.asset("mimic.js") + "\""));
+        site.buildHTML("index.html", new HTML() {
+
+            @Override
+            public void declare() {
+                $("html", () -> {
+                    $("body", () -> {
+                        $(svg("copy"));
+                    });
+                });
+            }
+        });
+
+        assert mimic.matches("mimic\\.[0-9a-f]{8}\\.js");
+        assert svg.matches("main\\.[0-9a-f]{8}\\.svg");
+        assert site.asset("mimic.js").equals(mimic);
+        assert site.asset("index.html").equals("index.html");
+        assert read(output, main).equals("import { Mimic } from \"./" + mimic + "\"");
+        assert read(output, "index.html").contains(svg + "#copy");
+    }
+
+    @Test
+    void fingerprintDeletesStaleAsset() {
+        Directory output = room.locateDirectory("fingerprintDeletesStaleAsset");
+        SiteBuilder first = SiteBuilder.root(output).sync().compress(0).fingerprint();
+        String old = first.build("main.css", "body {color: red}");
+        String kept = first.build("mimic.js", "const Mimic = 1");
+        first.buildAssetManifest("assets.json");
+        first.finish();
+
+        SiteBuilder second = SiteBuilder.root(output).sync().compress(0).fingerprint();
+        String current = second.build("main.css", "body {color: blue}");
+        second.build("mimic.js", "const Mimic = 1");
+        second.buildAssetManifest("assets.json");
+        second.finish();
+
+        assert !old.equals(current);
+        assert !Files.exists(path(output, old));
+        assert !Files.exists(path(output, old + ".gz"));
+        assert Files.exists(path(output, current));
+        assert Files.exists(path(output, kept));
+        assert read(output, "assets.json").contains("\"main.css\": \"" + current + "\"");
+    }
+
+    @Test
+    void archive() throws IOException {
+        Directory output = room.locateDirectory("archiveDirectory");
+        SiteBuilder directory = SiteBuilder.root(output).compress(0);
+        build(directory);
+        directory.finish();
+
+        Path zip = room.locateDirectory("archive").asJavaPath().resolve("site.zip");
+        SiteBuilder archive = SiteBuilder.archive(zip);
+        archive.compress(0);
+        build(archive);
+        archive.close();
+
+        try (FileSystem system = FileSystems.newFileSystem(zip)) {
+            Set<String> entries = files(system.getPath("/"));
+            assert entries.equals(files(output.asJavaPath()));
+            assert entries.contains("api/a.html.gz");
+            assert Files.readString(system.getPath("/api/a.html")).equals(read(output, "api/a.html"));
+        }
+    }
+
+    /**
+     * Build the same files into the specified builder.
+     *
+     * @param site The builder.
+     */
+    private void build(SiteBuilder site) {
+        site.build("index.html", "index");
+        site.build("api/a.html", "a");
+        site.build("main.js", "const main = 1");
+        site.build("search/index.json", "{}");
+    }
+
+    /**
+     * List the relative paths of all files under the specified directory.
+     *
+     * @param root The root directory.
+     * @return The relative paths.
+     */
+    private Set<String> files(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            Set<String> paths = new TreeSet();
+            files.filter(Files::isRegularFile).forEach(file -> paths.add(root.relativize(file).toString().replace('\\', '/')));
+            return paths;
+        }
+    }
+
+    /**
+     * Resolve the file in the output.
+     *
+     * @param output The output directory.
+     * @param path The relative path of the file.
+     * @return The file.
+     */
+    private Path path(Directory output, String path) {
+        return output.asJavaPath().resolve(path);
+    }
+
+    /**
+     * Create the file with the specified content.
+     *
+     * @param output The output directory.
+     * @param path The relative path of the file.
+     * @param content The content.
+     */
+    private void write(Directory output, String path, String content) {
+        try {
+            Path file = path(output, path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Read the built file.
+     *
+     * @param output The output directory.
+     * @param path The relative path of the file.
+     * @return The content.
+     */
+    private String read(Directory output, String path) {
+        try {
+            return Files.readString(path(output, path));
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Set the old modification time to the built file.
+     *
+     * @param output The output directory.
+     * @param path The relative path of the file.
+     */
+    private void touch(Directory output, String path) {
+        try {
+            Files.setLastModifiedTime(path(output, path), OLD);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Read the modification time of the built file.
+     *
+     * @param output The output directory.
+     * @param path The relative path of the file.
+     * @return The modification time.
+     */
+    private FileTime modified(Directory output, String path) {
+        try {
+            return Files.getLastModifiedTime(path(output, path));
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+}
@@ -186,4 +186,93 @@ class MinifyTest {
                 b
                 """).equals("a,b");
     }
-}
\ No newline at end of file
+
+    @Test
+    void unary() {
+        assert Minify.minify("a - -b").equals("a- -b");
+        assert Minify.minify("a + +b").equals("a+ +b");
+        assert Minify.minify("a++ + b").equals("a++ +b");
+    }
+
+    @Test
+    void literalTemplate() {
+        assert Minify.minify("call( `a ${ b } c` )").equals("call(`a ${ b } c`)");
+        assert Minify.minify("""
+                `first
+                  second`
+                """).equals("""
+                `first
+                  second`""");
+    }
+
+    @Test
+    void literalRegex() {
+        assert Minify.minify("a = / b /g").equals("a=/ b /g");
+        assert Minify.minify("call( /[/]/ )").equals("call(/[/]/)");
+        assert Minify.minify("return /a/.test( b )").equals("return/a/.test(b)");
+        assert Minify.minify("""
+                a = /b/
+                call()
+                """).equals("""
+                a=/b/
+                call()""");
+    }
+
+    @Test
+    void grammar() {
+        String minified = Minify.minify("""
+                /*
+                Language: JSON
+                Website: http://www.json.org
+                */
+
+                export default function(hljs) {
+                  const ATTRIBUTE = {
+                    className: 'attr',
+                    begin: /"(\\\\.|[^\\\\"\\r\\n])*"(?=\\s*:)/,
+                    relevance: 1.01
+                  };
+                  const PUNCTUATION = {
+                    match: /[{}[\\],:]/,
+                    className: "punctuation",
+                    relevance: 0
+                  };
+                  // NOTE: the mode allows the very tight `illegal: \\S` rule
+                  return {
+                    name: 'JSON',
+                    contains: [
+                      ATTRIBUTE,
+                      PUNCTUATION,
+                      hljs.QUOTE_STRING_MODE
+                    ],
+                    illegal: '\\\\S'
+                  };
+                }
+                """);
+
+        assert minified.equals("""
+                export default function(hljs){const ATTRIBUTE={className:'attr',begin:/"(\\\\.|[^\\\\"\\r\\n])*"(?=\\s*:)/,relevance:1.01};\
+                const PUNCTUATION={match:/[{}[\\],:]/,className:"punctuation",relevance:0};return{name:'JSON',contains:[
+                ATTRIBUTE,PUNCTUATION,hljs.QUOTE_STRING_MODE],illegal:'\\\\S'};}""");
+    }
+
+    @Test
+    void minifiedGrammar() {
+        String grammar = """
+                var hljsGrammar=(()=>{"use strict";return e=>{const a=["true","false","null"],n={scope:"literal",beginKeywords:a.join(" ")};\
+                return{name:"JSON",keywords:{literal:a},contains:[{className:"attr",begin:/"(\\\\.|[^\\\\"\\r\\n])*"(?=\\s*:)/,relevance:1.01},\
+                {match:/[{}[\\],:]/,className:"punctuation",relevance:0},e.QUOTE_STRING_MODE,n,e.C_NUMBER_MODE,e.C_LINE_COMMENT_MODE,\
+                e.C_BLOCK_COMMENT_MODE],illegal:"\\\\S"}}})();export default hljsGrammar;""";
+
+        assert Minify.minify("/*! `json` grammar compiled for Highlight.js 11.7.0 */\n" + grammar).equals(grammar);
+    }
+
+    @Test
+    void css() {
+        assert Minify.css("a { color: red ; }").equals("a{color:red}");
+        assert Minify.css("a:hover, b > c { margin: 0 auto; }").equals("a:hover,b>c{margin:0 auto}");
+        assert Minify.css("div :hover {}").equals("div :hover{}");
+        assert Minify.css("a { width: calc(1px + 2px); }").equals("a{width:calc(1px + 2px)}");
+        assert Minify.css("/* comment */ a { content: ' ; } '; }").equals("a{content:' ; } '}");
+    }
+}